@@ -389,6 +389,8 @@ public class DefaultSiteTool implements SiteTool {
         Objects.requireNonNull(repoSession, "repoSession cannot be null");
         Objects.requireNonNull(remoteProjectRepositories, "remoteProjectRepositories cannot be null");
 
+        Object event = SiteToolEvents.beginSiteModel();
+
         LOGGER.debug("Computing site model of '" + project.getId() + "' for "
                 + (locale.equals(SiteTool.DEFAULT_LOCALE) ? "default locale" : "locale '" + locale + "'"));
 
@@ -420,6 +422,8 @@ public class DefaultSiteTool implements SiteTool {
             throw new SiteToolException("Error while populating modules menu", e);
         }
 
+        SiteToolEvents.endSiteModel(event, project, locale, siteDescriptorContent.length());
+
         return siteModel;
     }
 
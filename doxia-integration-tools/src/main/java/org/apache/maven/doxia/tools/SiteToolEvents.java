@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.tools;
+
+import java.util.Locale;
+
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Java Flight Recorder events of the site tool. This Java 8 implementation records nothing: on Java 11 and later,
+ * the multi-release jar replaces it with one emitting <code>org.apache.maven.doxia.*</code> events.
+ *
+ * @since 2.1
+ */
+final class SiteToolEvents {
+    private SiteToolEvents() {
+        // no instances
+    }
+
+    static Object beginSiteModel() {
+        return null;
+    }
+
+    static void endSiteModel(Object event, MavenProject project, Locale locale, int descriptorLength) {
+        // not recorded
+    }
+}
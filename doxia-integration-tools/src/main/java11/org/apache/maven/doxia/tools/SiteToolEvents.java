@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.tools;
+
+import java.util.Locale;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Java Flight Recorder events of the site tool, used from the multi-release jar on Java 11 and later.
+ * Events are only allocated while their type is enabled in a recording, and their values only computed when
+ * committed.
+ *
+ * @since 2.1
+ */
+final class SiteToolEvents {
+    private static final EventType SITE_MODEL = EventType.getEventType(SiteModelEvent.class);
+
+    private SiteToolEvents() {
+        // no instances
+    }
+
+    static Object beginSiteModel() {
+        if (!SITE_MODEL.isEnabled()) {
+            return null;
+        }
+        SiteModelEvent event = new SiteModelEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endSiteModel(Object event, MavenProject project, Locale locale, int descriptorLength) {
+        SiteModelEvent e = (SiteModelEvent) event;
+        if (e == null) {
+            return;
+        }
+        e.end();
+        if (e.shouldCommit()) {
+            e.project = project.getId();
+            e.locale = locale.toString();
+            e.descriptorLength = descriptorLength;
+            e.commit();
+        }
+    }
+
+    @Name("org.apache.maven.doxia.SiteModel")
+    @Label("Site Model")
+    @Description("Assembly of the site model of a project, with inheritance, interpolation and menus")
+    @Category({"Maven", "Doxia"})
+    static class SiteModelEvent extends Event {
+        @Label("Project")
+        String project;
+
+        @Label("Locale")
+        String locale;
+
+        @Label("Descriptor Length")
+        @Description("Number of characters of the interpolated site descriptor")
+        int descriptorLength;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.tools;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.doxia.site.Menu;
+import org.apache.maven.doxia.site.SiteModel;
+import org.apache.maven.doxia.tools.stubs.SyntheticReactorGenerator;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.codehaus.plexus.testing.PlexusTest;
+import org.codehaus.plexus.util.FileUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+import org.junit.jupiter.api.Test;
+
+import static org.codehaus.plexus.testing.PlexusExtension.getTestFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scale test of the site model assembly with a synthetic reactor, asserting wall-time and retained heap ceilings.
+ * The reactor size and ceilings default to values suitable for every build, and can be raised with system
+ * properties: for example <code>-Ddoxia.scale.modules=300</code>.
+ */
+@PlexusTest
+public class SiteToolScaleTest {
+    private static final int MODULES = Integer.getInteger("doxia.scale.modules", 60);
+
+    private static final long SITE_MODEL_MILLIS = Long.getLong("doxia.scale.siteModelMillis", 30_000);
+
+    private static final long HEAP_MB = Long.getLong("doxia.scale.heapMB", 64);
+
+    @Inject
+    private SiteTool tool;
+
+    @Test
+    public void testGetSiteModelOfLargeReactor() throws Exception {
+        File basedir = getTestFile("target/scale-reactor");
+        FileUtils.deleteDirectory(basedir);
+
+        List<Locale> locales = new ArrayList<>();
+        locales.add(SiteTool.DEFAULT_LOCALE);
+        locales.add(Locale.FRENCH);
+        List<MavenProject> reactorProjects = new SyntheticReactorGenerator()
+                .modules(MODULES)
+                .depth(2)
+                .menus(5, 20)
+                .locales(locales.toArray(new Locale[0]))
+                .generate(new File(basedir, "root"));
+
+        DefaultRepositorySystemSession repoSession = MavenRepositorySystemUtils.newSession();
+        repoSession.setLocalRepositoryManager(new SimpleLocalRepositoryManagerFactory()
+                .newInstance(repoSession, new LocalRepository(new File(basedir, "local-repo"))));
+
+        for (Locale locale : locales) {
+            long heap = usedHeap();
+            long start = System.nanoTime();
+            List<SiteModel> siteModels = new ArrayList<>(reactorProjects.size());
+            for (MavenProject project : reactorProjects) {
+                siteModels.add(tool.getSiteModel(
+                        new File(project.getBasedir(), "src/site"),
+                        locale,
+                        project,
+                        reactorProjects,
+                        repoSession,
+                        Collections.emptyList()));
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long retainedMB = (usedHeap() - heap) / (1024 * 1024);
+
+            String operation = "getSiteModel of " + reactorProjects.size() + " projects (" + locale + ")";
+            assertTrue(
+                    millis <= SITE_MODEL_MILLIS,
+                    operation + " took " + millis + " ms, more than " + SITE_MODEL_MILLIS + " ms");
+            assertTrue(
+                    retainedMB <= HEAP_MB, operation + " retained " + retainedMB + " MB, more than " + HEAP_MB + " MB");
+
+            // every module inherits the root menus, and aggregators list their modules
+            assertEquals(reactorProjects.size(), siteModels.size());
+            MavenProject root = reactorProjects.get(0);
+            Menu modulesMenu = siteModels.get(0).getMenuRef("modules");
+            assertNotNull(modulesMenu);
+            assertEquals(root.getModules().size(), modulesMenu.getItems().size());
+            SiteModel leaf = siteModels.get(siteModels.size() - 1);
+            assertTrue(leaf.getMenus().stream().anyMatch(menu -> ("Menu 0 (" + locale + ")").equals(menu.getName())));
+        }
+    }
+
+    /**
+     * Get the heap used after a garbage collection: only reachable objects are counted.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
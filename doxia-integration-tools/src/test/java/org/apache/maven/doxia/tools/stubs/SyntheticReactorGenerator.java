@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.tools.stubs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Generator of synthetic reactors for scale tests: a tree of aggregator projects down to leaf modules, each
+ * project in a sub-directory of its parent. The root project has a site descriptor per locale, with parent and
+ * modules menus and synthetic menus, inherited by every module. Every parameter has a small default, to be raised
+ * with the setters.
+ */
+public class SyntheticReactorGenerator {
+    private int modules = 30;
+
+    private int depth = 2;
+
+    private int menus = 5;
+
+    private int menuSize = 10;
+
+    private List<Locale> locales = Collections.singletonList(Locale.ROOT);
+
+    /**
+     * @param modules the number of leaf modules
+     * @return this generator
+     */
+    public SyntheticReactorGenerator modules(int modules) {
+        this.modules = modules;
+        return this;
+    }
+
+    /**
+     * @param depth the number of aggregator levels above the leaf modules, including the root
+     * @return this generator
+     */
+    public SyntheticReactorGenerator depth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    /**
+     * @param menus the number of synthetic menus of the root site descriptor
+     * @param menuSize the number of items of each synthetic menu
+     * @return this generator
+     */
+    public SyntheticReactorGenerator menus(int menus, int menuSize) {
+        this.menus = menus;
+        this.menuSize = menuSize;
+        return this;
+    }
+
+    /**
+     * @param locales the locales of the site descriptors, the first one being the default locale
+     * @return this generator
+     */
+    public SyntheticReactorGenerator locales(Locale... locales) {
+        this.locales = Arrays.asList(locales);
+        return this;
+    }
+
+    /**
+     * Write the site descriptors and create the projects of the reactor.
+     *
+     * @param basedir the base directory of the root project
+     * @return the reactor projects, every project before its modules
+     * @throws IOException if a site descriptor can't be written
+     */
+    public List<MavenProject> generate(File basedir) throws IOException {
+        // leaf modules of each aggregator, for the requested number of leaves at the requested depth
+        int fanout = (int) Math.ceil(Math.pow(modules, 1.0 / depth));
+
+        List<MavenProject> reactor = new ArrayList<>();
+        MavenProject root = newProject(basedir.getCanonicalFile(), "root", null);
+        writeSiteDescriptors(root.getBasedir());
+        reactor.add(root);
+        addModules(root, 1, fanout, new int[] {modules}, reactor);
+        return reactor;
+    }
+
+    private void addModules(MavenProject parent, int level, int fanout, int[] remaining, List<MavenProject> reactor) {
+        for (int i = 0; i < fanout && remaining[0] > 0; i++) {
+            String artifactId = parent.getArtifactId() + '-' + i;
+            MavenProject module = newProject(new File(parent.getBasedir(), artifactId), artifactId, parent);
+            parent.getModules().add(artifactId);
+            reactor.add(module);
+            if (level < depth) {
+                addModules(module, level + 1, fanout, remaining, reactor);
+            } else {
+                remaining[0]--;
+            }
+        }
+    }
+
+    private static MavenProject newProject(File basedir, String artifactId, MavenProject parent) {
+        Model model = new Model();
+        model.setGroupId("org.apache.maven.doxia.synthetic");
+        model.setArtifactId(artifactId);
+        model.setVersion("1.0");
+        model.setPackaging(parent == null ? "pom" : "jar");
+        model.setName("Synthetic " + artifactId);
+        model.setUrl(parent == null ? "https://maven.example.org/synthetic/" : parent.getUrl() + artifactId + '/');
+
+        MavenProject project = new MavenProject(model);
+        project.setFile(new File(basedir, "pom.xml"));
+        project.setParent(parent);
+        return project;
+    }
+
+    private void writeSiteDescriptors(File basedir) throws IOException {
+        File siteDirectory = new File(basedir, "src/site");
+        siteDirectory.mkdirs();
+        for (Locale locale : locales) {
+            String name = locale.equals(locales.get(0)) ? "site.xml" : "site_" + locale + ".xml";
+            Files.write(
+                    new File(siteDirectory, name).toPath(),
+                    getSiteDescriptor(locale).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private String getSiteDescriptor(Locale locale) {
+        StringBuilder site = new StringBuilder();
+        site.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<site xmlns=\"http://maven.apache.org/SITE/2.0.0\" name=\"${project.name}\">\n")
+                .append("  <bannerLeft name=\"${project.name}\" href=\"index.html\"/>\n")
+                .append("  <body>\n")
+                .append("    <breadcrumbs>\n      <item name=\"Synthetic\" href=\"index.html\"/>\n    </breadcrumbs>\n")
+                .append("    <menu ref=\"parent\" inherit=\"top\"/>\n");
+        for (int i = 0; i < menus; i++) {
+            site.append("    <menu name=\"Menu ")
+                    .append(i)
+                    .append(" (")
+                    .append(locale)
+                    .append(")\" inherit=\"bottom\">\n");
+            for (int j = 0; j < menuSize; j++) {
+                site.append("      <item name=\"Item ")
+                        .append(j)
+                        .append("\" href=\"menu-")
+                        .append(i)
+                        .append("/item-")
+                        .append(j)
+                        .append(".html\">\n")
+                        .append("        <item name=\"Sub-item\" href=\"menu-")
+                        .append(i)
+                        .append("/item-")
+                        .append(j)
+                        .append("/sub.html\"/>\n")
+                        .append("      </item>\n");
+            }
+            site.append("    </menu>\n");
+        }
+        site.append("    <menu ref=\"modules\" inherit=\"bottom\"/>\n")
+                .append("  </body>\n")
+                .append("</site>\n");
+        return site.toString();
+    }
+}
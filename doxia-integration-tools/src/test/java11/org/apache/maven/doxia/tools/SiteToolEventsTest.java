@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.tools;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test of the Java Flight Recorder events, with the Java 11 classes of the multi-release jar.
+ */
+public class SiteToolEventsTest {
+    @Test
+    public void testNoEventWithoutRecording() {
+        assertNull(SiteToolEvents.beginSiteModel());
+    }
+
+    @Test
+    public void testRecordedEvent() throws Exception {
+        MavenProject project = new MavenProject();
+        project.setGroupId("org.apache.maven.doxia");
+        project.setArtifactId("events");
+        project.setVersion("1.0");
+
+        Path dump = Files.createTempFile("doxia-integration-tools", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.apache.maven.doxia.SiteModel");
+            recording.start();
+            SiteToolEvents.endSiteModel(SiteToolEvents.beginSiteModel(), project, Locale.FRENCH, 42);
+            recording.stop();
+            recording.dump(dump);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            assertEquals(1, events.size());
+            RecordedEvent event = events.get(0);
+            assertEquals("org.apache.maven.doxia.SiteModel", event.getEventType().getName());
+            assertEquals(project.getId(), event.getString("project"));
+            assertEquals("fr", event.getString("locale"));
+            assertEquals(42, event.getInt("descriptorLength"));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+}
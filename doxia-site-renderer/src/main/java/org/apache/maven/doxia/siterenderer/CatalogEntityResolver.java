@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.doxia.parser.AbstractXmlParser;
+import org.codehaus.plexus.util.IOUtil;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Entity resolver serving the XHTML character entity sets from copies bundled with the renderer, matched by
+ * public or system id, without any network access. Other entities are resolved and cached by the Doxia
+ * {@link AbstractXmlParser.CachedFileEntityResolver}.
+ *
+ * @since 2.1
+ */
+class CatalogEntityResolver extends AbstractXmlParser.CachedFileEntityResolver {
+    private static final Map<String, String> CATALOG = new HashMap<>();
+
+    private static final Map<String, byte[]> CONTENTS = new ConcurrentHashMap<>();
+
+    static {
+        addEntitySet("-//W3C//ENTITIES Latin 1 for XHTML//EN", "xhtml-lat1.ent");
+        addEntitySet("-//W3C//ENTITIES Symbols for XHTML//EN", "xhtml-symbol.ent");
+        addEntitySet("-//W3C//ENTITIES Special for XHTML//EN", "xhtml-special.ent");
+    }
+
+    private static void addEntitySet(String publicId, String name) {
+        CATALOG.put(publicId, name);
+        CATALOG.put("http://www.w3.org/TR/xhtml1/DTD/" + name, name);
+        CATALOG.put("https://www.w3.org/TR/xhtml1/DTD/" + name, name);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
+        String name = publicId == null ? null : CATALOG.get(publicId);
+        if (name == null && systemId != null) {
+            name = CATALOG.get(systemId);
+        }
+        if (name == null) {
+            return super.resolveEntity(publicId, systemId);
+        }
+
+        InputSource is =
+                new InputSource(new ByteArrayInputStream(CONTENTS.computeIfAbsent(name, CatalogEntityResolver::load)));
+        is.setPublicId(publicId);
+        is.setSystemId(systemId);
+        return is;
+    }
+
+    private static byte[] load(String name) {
+        try (InputStream in = CatalogEntityResolver.class.getResourceAsStream("dtd/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing bundled entity set dtd/" + name);
+            }
+            return IOUtil.toByteArray(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read bundled entity set dtd/" + name, e);
+        }
+    }
+}
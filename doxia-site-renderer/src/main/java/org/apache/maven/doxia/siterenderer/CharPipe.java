@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Bounded single producer, single consumer character pipe, read as a {@link Reader} by the consumer.
+ * Unlike {@link java.io.PipedReader}, it does not depend on the liveness of the threads, which may belong to pools:
+ * the producer either {@link #finish()}es or {@link #abort(Throwable)}s, and the consumer {@link #close()}s the
+ * reader once it has stopped reading, after which the written characters are discarded.
+ *
+ * @since 2.1
+ */
+class CharPipe extends Reader {
+    private final char[] buffer;
+
+    private int head;
+
+    private int size;
+
+    /** The producer has written everything. */
+    private boolean finished;
+
+    /** The producer has failed: the consumer must stop reading. */
+    private boolean aborted;
+
+    private Throwable abortCause;
+
+    /** The consumer has stopped reading: the producer must not wait for it anymore. */
+    private boolean discarded;
+
+    /**
+     * @param capacity the number of characters that can be written before the producer has to wait for the consumer
+     */
+    CharPipe(int capacity) {
+        buffer = new char[capacity];
+    }
+
+    /**
+     * Write characters, waiting for the consumer to read them while the pipe is full.
+     *
+     * @param cbuf the characters
+     * @param off the offset of the first character to write
+     * @param len the number of characters to write
+     * @throws InterruptedIOException if the producer is interrupted while waiting
+     */
+    synchronized void write(char[] cbuf, int off, int len) throws InterruptedIOException {
+        while (len > 0) {
+            while (size == buffer.length && !discarded) {
+                waitForPeer();
+            }
+            if (discarded) {
+                return;
+            }
+
+            int tail = (head + size) % buffer.length;
+            int n = Math.min(len, Math.min(buffer.length - size, buffer.length - tail));
+            System.arraycopy(cbuf, off, buffer, tail, n);
+            size += n;
+            off += n;
+            len -= n;
+            notifyAll();
+        }
+    }
+
+    /**
+     * @return a writer for the producer, finishing the pipe when closed
+     */
+    Writer writer() {
+        return new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                CharPipe.this.write(cbuf, off, len);
+            }
+
+            @Override
+            public void flush() {
+                // the consumer reads as soon as characters are written
+            }
+
+            @Override
+            public void close() {
+                finish();
+            }
+        };
+    }
+
+    /**
+     * @return <code>true</code> if the consumer has stopped reading
+     */
+    synchronized boolean isDiscarded() {
+        return discarded;
+    }
+
+    /**
+     * Called by the producer once everything is written.
+     */
+    synchronized void finish() {
+        finished = true;
+        notifyAll();
+    }
+
+    /**
+     * Called by the producer when it fails: the consumer gets an <code>IOException</code> on its next read.
+     * Does nothing if the pipe is already finished.
+     *
+     * @param cause the cause of the failure, may be <code>null</code>
+     */
+    synchronized void abort(Throwable cause) {
+        if (!finished) {
+            aborted = true;
+            abortCause = cause;
+            notifyAll();
+        }
+    }
+
+    @Override
+    public synchronized int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (size == 0 && !finished && !aborted) {
+            waitForPeer();
+        }
+        if (aborted) {
+            throw new IOException("Document reading aborted", abortCause);
+        }
+        if (size == 0) {
+            return -1;
+        }
+
+        int n = Math.min(len, Math.min(size, buffer.length - head));
+        System.arraycopy(buffer, head, cbuf, off, n);
+        head = (head + n) % buffer.length;
+        size -= n;
+        notifyAll();
+        return n;
+    }
+
+    /**
+     * Called by the consumer once it has stopped reading.
+     */
+    @Override
+    public synchronized void close() {
+        discarded = true;
+        size = 0;
+        notifyAll();
+    }
+
+    private void waitForPeer() throws InterruptedIOException {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+}
@@ -22,34 +22,34 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.StringWriter;
 import java.io.Writer;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.SystemUtils;
@@ -67,17 +67,15 @@ import org.apache.maven.doxia.parser.module.ParserModule;
 import org.apache.maven.doxia.parser.module.ParserModuleManager;
 import org.apache.maven.doxia.site.SiteModel;
 import org.apache.maven.doxia.site.skin.SkinModel;
-import org.apache.maven.doxia.site.skin.io.xpp3.SkinXpp3Reader;
+import org.apache.maven.doxia.siterenderer.DocumentSourceScanner.SourceFile;
 import org.apache.maven.doxia.siterenderer.SiteRenderingContext.SiteDirectory;
 import org.apache.maven.doxia.siterenderer.sink.SiteRendererSink;
-import org.apache.maven.doxia.util.XmlValidator;
 import org.apache.velocity.Template;
 import org.apache.velocity.context.Context;
 import org.apache.velocity.exception.ParseErrorException;
 import org.apache.velocity.exception.ResourceNotFoundException;
 import org.apache.velocity.exception.VelocityException;
 import org.apache.velocity.tools.Scope;
-import org.apache.velocity.tools.ToolManager;
 import org.apache.velocity.tools.config.ConfigurationUtils;
 import org.apache.velocity.tools.config.EasyFactoryConfiguration;
 import org.apache.velocity.tools.config.FactoryConfiguration;
@@ -98,8 +96,8 @@ import org.apache.velocity.tools.generic.ResourceTool;
 import org.apache.velocity.tools.generic.SortTool;
 import org.apache.velocity.tools.generic.XmlTool;
 import org.codehaus.plexus.PlexusContainer;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Disposable;
 import org.codehaus.plexus.util.DirectoryScanner;
-import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.Os;
 import org.codehaus.plexus.util.PathTool;
@@ -120,7 +118,7 @@ import org.slf4j.LoggerFactory;
  */
 @Singleton
 @Named
-public class DefaultSiteRenderer implements Renderer {
+public class DefaultSiteRenderer implements Renderer, Disposable {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultSiteRenderer.class);
 
     // ----------------------------------------------------------------------
@@ -145,6 +143,18 @@ public class DefaultSiteRenderer implements Renderer {
 
     private static final String DOXIA_SITE_RENDERER_VERSION = getSiteRendererVersion();
 
+    private final SiteTemplateCache templateCache = new SiteTemplateCache();
+
+    private final Map<String, SiteToolManager> toolManagers = new ConcurrentHashMap<>();
+
+    private final SkinArchiveRegistry skinArchives = new SkinArchiveRegistry();
+
+    private final Map<String, Parser> parsers = new ConcurrentHashMap<>();
+
+    private final PipelineExecutor pipelineExecutor = new PipelineExecutor();
+
+    private final StreamingXmlValidator xmlValidator = new StreamingXmlValidator(pipelineExecutor);
+
     // ----------------------------------------------------------------------
     // SiteRenderer implementation
     // ----------------------------------------------------------------------
@@ -152,88 +162,136 @@ public class DefaultSiteRenderer implements Renderer {
     /** {@inheritDoc} */
     public Map<String, DocumentRenderer> locateDocumentFiles(SiteRenderingContext siteRenderingContext)
             throws IOException, RendererException {
+        return locateDocumentFiles(siteRenderingContext, new HashMap<>());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * A source directory used by several locales with the same module excludes is scanned once.
+     */
+    @Override
+    public void locateDocumentFiles(List<LocaleRendering> localeRenderings) throws IOException, RendererException {
+        Map<List<Object>, DocumentSourceScanner> scannerCache = new HashMap<>();
+        for (LocaleRendering localeRendering : localeRenderings) {
+            localeRendering
+                    .getDocuments()
+                    .putAll(locateDocumentFiles(localeRendering.getSiteRenderingContext(), scannerCache));
+        }
+    }
+
+    /**
+     * @param scannerCache the scanners of the source directories already scanned, keyed by source directory and
+     *            module excludes
+     */
+    private Map<String, DocumentRenderer> locateDocumentFiles(
+            SiteRenderingContext siteRenderingContext, Map<List<Object>, DocumentSourceScanner> scannerCache)
+            throws IOException, RendererException {
+        long start = System.nanoTime();
+        Object event = SiteRenderingEvents.beginLocateDocuments();
         Map<String, DocumentRenderer> files = new LinkedHashMap<>();
+        // first document renderer for each case-folded output name, to detect case-insensitive clashes
+        Map<String, DocumentRenderer> caseFoldedFiles = new HashMap<>();
         Map<String, String> moduleExcludes = siteRenderingContext.getModuleExcludes();
 
+        Collection<ParserModule> modules = parserModuleManager.getParserModules();
+
+        // group Doxia parser modules by source directory, to scan each source directory once
+        Map<String, List<ParserModule>> modulesBySourceDirectory = new LinkedHashMap<>();
+        for (ParserModule module : modules) {
+            if (!ArrayUtils.isEmpty(module.getExtensions())) {
+                modulesBySourceDirectory
+                        .computeIfAbsent(module.getSourceDirectory(), k -> new ArrayList<>())
+                        .add(module);
+            }
+        }
+
         // look in every site directory (in general src/site or target/generated-site)
         for (SiteDirectory siteDirectory : siteRenderingContext.getSiteDirectories()) {
             File siteDirectoryPath = siteDirectory.getPath();
             if (siteDirectoryPath.exists()) {
-                Collection<ParserModule> modules = parserModuleManager.getParserModules();
-                // use every Doxia parser module
+                Map<ParserModule, DocumentSourceScanner> scanners = new HashMap<>();
+                for (Map.Entry<String, List<ParserModule>> entry : modulesBySourceDirectory.entrySet()) {
+                    File moduleBasedir = new File(siteDirectoryPath, entry.getKey());
+                    if (moduleBasedir.isDirectory()) {
+                        List<Object> key = Arrays.asList(moduleBasedir.getAbsolutePath(), moduleExcludes);
+                        DocumentSourceScanner scanner = scannerCache.get(key);
+                        if (scanner == null) {
+                            scanner = new DocumentSourceScanner(entry.getValue(), moduleExcludes);
+                            scanner.scan(moduleBasedir);
+                            scannerCache.put(key, scanner);
+                        }
+                        for (ParserModule module : entry.getValue()) {
+                            scanners.put(module, scanner);
+                        }
+                    }
+                }
+
+                // use every Doxia parser module, in the same order as when scanning per module
                 for (ParserModule module : modules) {
-                    File moduleBasedir = new File(siteDirectoryPath, module.getSourceDirectory());
-
-                    String excludes = (moduleExcludes == null) ? null : moduleExcludes.get(module.getParserId());
-
-                    addModuleFiles(
-                            siteRenderingContext.getRootDirectory(),
-                            moduleBasedir,
-                            module,
-                            excludes,
-                            files,
-                            siteDirectory.isEditable(),
-                            siteDirectory.isSkipDuplicates());
+                    DocumentSourceScanner scanner = scanners.get(module);
+                    if (scanner != null) {
+                        addModuleFiles(
+                                siteRenderingContext.getRootDirectory(),
+                                new File(siteDirectoryPath, module.getSourceDirectory()),
+                                module,
+                                scanner,
+                                files,
+                                caseFoldedFiles,
+                                siteDirectory);
+                    }
                 }
             }
         }
 
-        return files;
-    }
+        siteRenderingContext.addDiscoverTime(System.nanoTime() - start);
+        SiteRenderingEvents.endLocateDocuments(event, siteRenderingContext, files.size());
 
-    private List<String> filterExtensionIgnoreCase(List<String> fileNames, String extension) {
-        List<String> filtered = new LinkedList<>(fileNames);
-        for (Iterator<String> it = filtered.iterator(); it.hasNext(); ) {
-            String name = it.next();
-
-            // Take care of extension case
-            if (!endsWithIgnoreCase(name, extension)) {
-                it.remove();
-            }
-        }
-        return filtered;
+        return files;
     }
 
     private void addModuleFiles(
             File rootDir,
             File moduleBasedir,
             ParserModule module,
-            String excludes,
+            DocumentSourceScanner scanner,
             Map<String, DocumentRenderer> files,
-            boolean editable,
-            boolean skipDuplicates)
-            throws IOException, RendererException {
-        if (!moduleBasedir.exists() || ArrayUtils.isEmpty(module.getExtensions())) {
-            return;
-        }
-
+            Map<String, DocumentRenderer> caseFoldedFiles,
+            SiteDirectory siteDirectory)
+            throws RendererException {
         String moduleRelativePath =
                 PathTool.getRelativeFilePath(rootDir.getAbsolutePath(), moduleBasedir.getAbsolutePath());
 
-        List<String> allFiles = FileUtils.getFileNames(moduleBasedir, "**/*", excludes, false);
-
-        for (String extension : module.getExtensions()) {
-            String fullExtension = "." + extension;
+        String[] extensions = module.getExtensions();
+        for (int i = 0; i < extensions.length; i++) {
+            String extension = extensions[i];
 
-            List<String> docs = filterExtensionIgnoreCase(allFiles, fullExtension);
+            List<SourceFile> docs = new ArrayList<>(scanner.getFiles(module, i, false));
 
             // *.<extension>.vm
-            List<String> velocityFiles = filterExtensionIgnoreCase(allFiles, fullExtension + ".vm");
-
-            docs.addAll(velocityFiles);
+            docs.addAll(scanner.getFiles(module, i, true));
 
-            for (String doc : docs) {
+            for (SourceFile doc : docs) {
                 DocumentRenderingContext docRenderingContext = new DocumentRenderingContext(
-                        moduleBasedir, moduleRelativePath, doc, module.getParserId(), extension, editable);
+                        moduleBasedir,
+                        moduleRelativePath,
+                        doc.getPath(),
+                        module.getParserId(),
+                        extension,
+                        siteDirectory.isEditable());
+                docRenderingContext.setSourceLastModified(doc.getLastModified());
+                docRenderingContext.setSourceSize(doc.getSize());
 
                 // TODO: DOXIA-111: we need a general filter here that knows how to alter the context
-                if (endsWithIgnoreCase(doc, ".vm")) {
+                if (endsWithIgnoreCase(doc.getPath(), ".vm")) {
                     docRenderingContext.setAttribute("velocity", "true");
                 }
 
-                if (!checkForDuplicate(docRenderingContext, files, skipDuplicates)) {
+                if (!checkForDuplicate(docRenderingContext, files, caseFoldedFiles, siteDirectory.isSkipDuplicates())) {
                     String key = docRenderingContext.getOutputName();
-                    files.put(key, new DoxiaDocumentRenderer(docRenderingContext));
+                    DocumentRenderer docRenderer = new DoxiaDocumentRenderer(docRenderingContext);
+                    files.put(key, docRenderer);
+                    caseFoldedFiles.putIfAbsent(foldCase(key), docRenderer);
                 }
             }
         }
@@ -255,12 +313,14 @@ public class DefaultSiteRenderer implements Renderer {
      * This check involves checking for duplicates both case-sensitive and case-insensitive.
      * @param newDocRenderingContext the doc rendering context of a new file
      * @param existingDocumentRenderers the map of already existing renderers
+     * @param caseFoldedDocumentRenderers the first existing renderer for each case-folded output name
      * @return {@code true} if no duplicates were found, {@code false} otherwise
      * @throws RendererException
      */
     private boolean checkForDuplicate(
             DocumentRenderingContext newDocRenderingContext,
             Map<String, DocumentRenderer> existingDocumentRenderers,
+            Map<String, DocumentRenderer> caseFoldedDocumentRenderers,
             boolean skipDuplicates)
             throws RendererException {
         DuplicateCallback duplicateCallback = (message) -> {
@@ -287,16 +347,24 @@ public class DefaultSiteRenderer implements Renderer {
             // also check for case-insensitive duplicates
             return checkForDuplicate(
                     newDocRenderingContext,
-                    key -> existingDocumentRenderers.entrySet().stream()
-                            .filter(e -> e.getKey().equalsIgnoreCase(key))
-                            .findFirst()
-                            .map(Entry::getValue)
-                            .orElse(null),
+                    key -> caseFoldedDocumentRenderers.get(foldCase(key)),
                     caseInsensitiveDuplicateCallback);
         }
         return true;
     }
 
+    /**
+     * Fold the case of a name, so that two names are equal ignoring case if and only if their folded names are equal,
+     * like with {@link String#equalsIgnoreCase(String)}.
+     */
+    static String foldCase(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
     private boolean checkForDuplicate(
             DocumentRenderingContext newDocRenderingContext,
             Function<String, DocumentRenderer> lookupFunction,
@@ -320,66 +388,570 @@ public class DefaultSiteRenderer implements Renderer {
     public void render(
             Collection<DocumentRenderer> documents, SiteRenderingContext siteRenderingContext, File outputDirectory)
             throws RendererException, IOException {
-        for (DocumentRenderer docRenderer : documents) {
-            DocumentRenderingContext docRenderingContext = docRenderer.getRenderingContext();
+        RenderTarget target = new RenderTarget(siteRenderingContext, outputDirectory);
+        try {
+            if (siteRenderingContext.getParallelism() > 1 && documents.size() > 1) {
+                List<List<DocumentRendering>> tasks = new ArrayList<>(documents.size());
+                for (DocumentRenderer docRenderer : documents) {
+                    tasks.add(Collections.singletonList(
+                            new DocumentRendering(docRenderer, target, newCachedParse(docRenderer, target))));
+                }
+                renderParallel(tasks, siteRenderingContext.getParallelism());
+            } else {
+                for (DocumentRenderer docRenderer : documents) {
+                    render(docRenderer, target, newCachedParse(docRenderer, target));
+                }
+            }
+        } finally {
+            target.close();
+        }
+    }
 
-            File outputFile = new File(outputDirectory, docRenderer.getOutputName());
+    /**
+     * @return the parse of the document through the render cache, or {@code null} if there is no cache or the
+     *         document cannot be cached
+     */
+    private SharedParse newCachedParse(DocumentRenderer docRenderer, RenderTarget target) {
+        return (target.cache != null && isParseShareable(docRenderer)) ? new SharedParse(target.cache) : null;
+    }
 
-            File inputFile = new File(docRenderingContext.getBasedir(), docRenderingContext.getInputName());
+    /**
+     * {@inheritDoc}
+     *
+     * The renderings of a shared Doxia source are grouped in one task, parsing the source on first need: tasks are
+     * rendered with the highest parallelism of the locales.
+     */
+    @Override
+    public void render(List<LocaleRendering> localeRenderings) throws RendererException, IOException {
+        List<RenderTarget> targets = new ArrayList<>(localeRenderings.size());
+        try {
+            List<List<DocumentRendering>> tasks = new ArrayList<>();
+            Map<List<Object>, List<DocumentRendering>> sharedTasks = new HashMap<>();
+            int parallelism = 1;
+            for (LocaleRendering localeRendering : localeRenderings) {
+                SiteRenderingContext siteRenderingContext = localeRendering.getSiteRenderingContext();
+                RenderTarget target = new RenderTarget(siteRenderingContext, localeRendering.getOutputDirectory());
+                targets.add(target);
+                parallelism = Math.max(parallelism, siteRenderingContext.getParallelism());
+
+                for (DocumentRenderer docRenderer :
+                        localeRendering.getDocuments().values()) {
+                    List<Object> key = getSharedParseKey(docRenderer, siteRenderingContext);
+                    List<DocumentRendering> task = (key == null) ? null : sharedTasks.get(key);
+                    SharedParse sharedParse;
+                    if (task == null) {
+                        task = new ArrayList<>(localeRenderings.size());
+                        tasks.add(task);
+                        sharedParse = (key == null) ? null : new SharedParse(target.cache);
+                        if (key != null) {
+                            sharedTasks.put(key, task);
+                        }
+                    } else {
+                        sharedParse = task.get(0).sharedParse;
+                    }
+                    task.add(new DocumentRendering(docRenderer, target, sharedParse));
+                }
+            }
+
+            if (parallelism > 1 && tasks.size() > 1) {
+                renderParallel(tasks, parallelism);
+            } else {
+                for (List<DocumentRendering> task : tasks) {
+                    for (DocumentRendering rendering : task) {
+                        rendering.render();
+                    }
+                }
+            }
+        } finally {
+            for (RenderTarget target : targets) {
+                target.close();
+            }
+        }
+    }
 
-            boolean modified = !outputFile.exists()
-                    || (inputFile.lastModified() > outputFile.lastModified())
+    /**
+     * Can the parse of a document be shared between locales or cached? Only for a Doxia source not processed by
+     * Velocity, rendered by a plain {@link DoxiaDocumentRenderer}.
+     */
+    private static boolean isParseShareable(DocumentRenderer docRenderer) {
+        DocumentRenderingContext docRenderingContext = docRenderer.getRenderingContext();
+        return docRenderer.getClass() == DoxiaDocumentRenderer.class
+                && docRenderingContext.isDoxiaSource()
+                && docRenderingContext.getAttribute("velocity") == null;
+    }
+
+    /**
+     * Get the key identifying the parse of a document, for a document whose parse can be shared between locales.
+     *
+     * @return the key, or {@code null} if the parse of the document cannot be shared
+     */
+    private static List<Object> getSharedParseKey(
+            DocumentRenderer docRenderer, SiteRenderingContext siteRenderingContext) {
+        if (!isParseShareable(docRenderer)) {
+            return null;
+        }
+
+        DocumentRenderingContext docRenderingContext = docRenderer.getRenderingContext();
+
+        File inputFile = new File(docRenderingContext.getBasedir(), docRenderingContext.getInputName());
+        return Arrays.asList(
+                inputFile.getAbsolutePath(),
+                docRenderingContext.getParserId(),
+                docRenderingContext.getDoxiaSourcePath(),
+                docRenderingContext.getOutputName(),
+                siteRenderingContext.getInputEncoding(),
+                siteRenderingContext.isValidate(),
+                siteRenderingContext.getParserConfigurator());
+    }
+
+    private void render(DocumentRenderer docRenderer, RenderTarget target, SharedParse sharedParse)
+            throws RendererException, IOException {
+        DocumentRenderingContext docRenderingContext = docRenderer.getRenderingContext();
+        SiteRenderingContext siteRenderingContext = target.siteRenderingContext;
+        RenderManifest manifest = target.manifest;
+        RenderReport report = target.report;
+
+        File outputFile = new File(target.outputDirectory, docRenderer.getOutputName());
+
+        if (manifest != null) {
+            manifest.produced(docRenderer.getOutputName());
+        }
+        if (target.produced != null) {
+            target.produced.add(docRenderer.getOutputName());
+        }
+
+        File inputFile = new File(docRenderingContext.getBasedir(), docRenderingContext.getInputName());
+
+        String fingerprint = null;
+        boolean modified;
+        if (manifest != null && docRenderingContext.isDoxiaSource()) {
+            fingerprint = manifest.getFingerprint(inputFile);
+            modified = !outputFile.exists() || !manifest.isUpToDate(docRenderer.getOutputName(), fingerprint);
+        } else {
+            // source last modification time may have been collected when locating documents
+            long inputLastModified = (docRenderingContext.getSourceLastModified() >= 0)
+                    ? docRenderingContext.getSourceLastModified()
+                    : inputFile.lastModified();
+            modified = !outputFile.exists()
+                    || (inputLastModified > outputFile.lastModified())
                     || (siteRenderingContext.getSiteModel().getLastModified() > outputFile.lastModified());
+        }
 
-            if (modified || docRenderer.isOverwrite()) {
-                if (!outputFile.getParentFile().exists()) {
-                    outputFile.getParentFile().mkdirs();
-                }
+        if (modified || docRenderer.isOverwrite()) {
+            if (!outputFile.getParentFile().exists()) {
+                outputFile.getParentFile().mkdirs();
+            }
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Generating " + outputFile);
+            }
 
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("Generating " + outputFile);
+            RenderReport.DocumentTimes times = null;
+            if (report != null) {
+                times = report.start(docRenderer);
+                if (docRenderingContext.isDoxiaSource()) {
+                    times.setBytesIn(
+                            (docRenderingContext.getSourceSize() >= 0)
+                                    ? docRenderingContext.getSourceSize()
+                                    : inputFile.length());
                 }
+                docRenderingContext.setRenderTimes(times);
+            }
 
-                Writer writer = null;
-                try {
-                    if (!docRenderer.isExternalReport()) {
+            ByteArrayOutputStream buffer = null;
+            Writer writer = null;
+            try {
+                if (!docRenderer.isExternalReport()) {
+                    if (target.deployment != null) {
+                        // write-if-changed compares the whole content to the output file
+                        buffer = new ByteArrayOutputStream();
+                        writer = WriterFactory.newWriter(buffer, siteRenderingContext.getOutputEncoding());
+                    } else if (target.precompressor != null
+                            && target.precompressor.accepts(docRenderer.getOutputName())) {
+                        writer = WriterFactory.newWriter(
+                                target.precompressor.newOutputStream(outputFile.toPath()),
+                                siteRenderingContext.getOutputEncoding());
+                    } else {
                         writer = WriterFactory.newWriter(outputFile, siteRenderingContext.getOutputEncoding());
                     }
+                }
+                if (sharedParse != null) {
+                    renderSharedDocument(writer, docRenderingContext, siteRenderingContext, sharedParse);
+                } else {
                     docRenderer.renderDocument(writer, this, siteRenderingContext);
-                } finally {
-                    IOUtil.close(writer);
                 }
-            } else {
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug(inputFile + " unchanged, not regenerating...");
+
+                if (writer != null) {
+                    long start = System.nanoTime();
+                    writer.close();
+                    if (buffer != null) {
+                        write(outputFile, buffer, docRenderer.getOutputName(), target);
+                    }
+                    RenderReport.record(times, RenderReport.Phase.WRITE, start);
+                }
+            } finally {
+                IOUtil.close(writer);
+                docRenderingContext.setRenderTimes(null);
+            }
+
+            if (times != null) {
+                times.setBytesOut(outputFile.length());
+                times.end();
+            }
+
+            if (fingerprint != null) {
+                manifest.update(docRenderer.getOutputName(), fingerprint);
+            }
+        } else {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(inputFile + " unchanged, not regenerating...");
+            }
+            if (target.deployment != null) {
+                target.deployment.unchanged();
+            }
+        }
+    }
+
+    /**
+     * Write rendered content buffered for write-if-changed to the output file, then its precompressed sidecar if it is
+     * of a compressible type.
+     */
+    private static void write(File outputFile, ByteArrayOutputStream content, String outputName, RenderTarget target)
+            throws IOException {
+        boolean written;
+        if (target.deployment != null) {
+            written = writeIfChanged(outputFile, content, outputName, target.deployment);
+        } else {
+            try (OutputStream out = Files.newOutputStream(outputFile.toPath())) {
+                content.writeTo(out);
+            }
+            written = true;
+        }
+
+        if (target.precompressor != null && target.precompressor.accepts(outputName)) {
+            File sidecar = GzipPrecompressor.getSidecar(outputFile);
+            boolean exists = sidecar.isFile();
+            boolean compressed = target.precompressor.compress(outputFile, content, written);
+            if (target.deployment != null) {
+                String sidecarName = outputName + GzipPrecompressor.EXTENSION;
+                if (compressed) {
+                    if (exists) {
+                        target.deployment.changed(sidecarName);
+                    } else {
+                        target.deployment.added(sidecarName);
+                    }
+                } else if (exists && !sidecar.isFile()) {
+                    target.deployment.deleted(sidecarName);
+                }
+            }
+        }
+    }
+
+    /**
+     * Write rendered content to the output file only if its content is different, to keep the modification time of
+     * unchanged files.
+     *
+     * @return {@code true} if the output file has been written
+     */
+    private static boolean writeIfChanged(
+            File outputFile, ByteArrayOutputStream content, String outputName, DeploymentManifest deployment)
+            throws IOException {
+        boolean exists = outputFile.isFile();
+        if (exists
+                && outputFile.length() == content.size()
+                && Arrays.equals(Files.readAllBytes(outputFile.toPath()), content.toByteArray())) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(outputFile + " content unchanged, not writing...");
+            }
+            deployment.unchanged();
+            return false;
+        }
+
+        try (OutputStream out = Files.newOutputStream(outputFile.toPath())) {
+            content.writeTo(out);
+        }
+        if (exists) {
+            deployment.changed(outputName);
+        } else {
+            deployment.added(outputName);
+        }
+        return true;
+    }
+
+    /**
+     * Render tasks with a work-stealing pool, the documents of a task being rendered in order. Only tasks of
+     * documents coming from a Doxia source are dispatched to the pool: other renderers (like reports) may not be
+     * thread-safe and are rendered on the calling thread.
+     * Whatever the completion order, the reported failure is the one of the first failing task in iteration
+     * order, like in serial rendering.
+     */
+    private void renderParallel(List<List<DocumentRendering>> tasks, int parallelism)
+            throws RendererException, IOException {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<Exception>> futures = new ArrayList<>(tasks.size());
+            for (List<DocumentRendering> task : tasks) {
+                if (task.get(0).docRenderer.getRenderingContext().isDoxiaSource()) {
+                    futures.add(pool.submit(() -> {
+                        Thread thread = Thread.currentThread();
+                        ClassLoader old = thread.getContextClassLoader();
+                        thread.setContextClassLoader(contextClassLoader);
+                        try {
+                            for (DocumentRendering rendering : task) {
+                                rendering.render();
+                            }
+                            return null;
+                        } catch (RendererException | IOException e) {
+                            return e;
+                        } finally {
+                            thread.setContextClassLoader(old);
+                        }
+                    }));
+                } else {
+                    futures.add(null);
+                }
+            }
+
+            Iterator<ForkJoinTask<Exception>> it = futures.iterator();
+            for (List<DocumentRendering> task : tasks) {
+                ForkJoinTask<Exception> future = it.next();
+                Exception failure;
+                try {
+                    if (future == null) {
+                        for (DocumentRendering rendering : task) {
+                            rendering.render();
+                        }
+                        failure = null;
+                    } else {
+                        failure = future.get();
+                    }
+                } catch (ExecutionException e) {
+                    failure = (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failure = new RendererException(
+                            "Interrupted while rendering "
+                                    + task.get(0).docRenderer.getOutputName(),
+                            e);
+                } catch (RendererException | IOException | RuntimeException e) {
+                    failure = e;
+                }
+
+                if (failure != null) {
+                    // don't start documents after the failing one, like serial rendering
+                    it.forEachRemaining(f -> {
+                        if (f != null) {
+                            f.cancel(false);
+                        }
+                    });
+                    throwRenderingFailure(failure);
+                }
+            }
+        } finally {
+            pool.shutdown();
+            // don't leave documents being written behind us
+            pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * An output directory rendered into, with the render manifest, rendering report, deployment manifest and render
+     * cache its site rendering context asks for.
+     */
+    private static final class RenderTarget {
+        private final SiteRenderingContext siteRenderingContext;
+
+        private final File outputDirectory;
+
+        private final RenderManifest manifest;
+
+        private final RenderReport report;
+
+        private final DeploymentManifest deployment;
+
+        private final RenderCache cache;
+
+        private final GzipPrecompressor precompressor;
+
+        private final Set<String> produced;
+
+        RenderTarget(SiteRenderingContext siteRenderingContext, File outputDirectory) throws IOException {
+            this.siteRenderingContext = siteRenderingContext;
+            this.outputDirectory = outputDirectory;
+            // write-if-changed keeps modification times: up-to-date checks need the manifest
+            this.manifest = (siteRenderingContext.isRenderManifest() || siteRenderingContext.isWriteIfChanged())
+                    ? RenderManifest.load(outputDirectory, siteRenderingContext, DOXIA_SITE_RENDERER_VERSION)
+                    : null;
+            this.report = siteRenderingContext.isRenderReport()
+                    ? siteRenderingContext.getRenderReport(outputDirectory)
+                    : null;
+            this.deployment = siteRenderingContext.isWriteIfChanged()
+                    ? siteRenderingContext.getDeploymentManifest(outputDirectory)
+                    : null;
+            this.cache = RenderCache.open(siteRenderingContext, DOXIA_SITE_RENDERER_VERSION);
+            this.precompressor = GzipPrecompressor.open(siteRenderingContext);
+            this.produced = (manifest != null && siteRenderingContext.isPruneStaleOutput())
+                    ? siteRenderingContext.getProducedDocuments(outputDirectory)
+                    : null;
+        }
+
+        /**
+         * Save the manifests and report, and evict old render cache entries.
+         *
+         * @throws IOException if a manifest or the report can't be written
+         */
+        void close() throws IOException {
+            if (manifest != null) {
+                manifest.save();
+            }
+            if (report != null) {
+                report.save(siteRenderingContext.getDiscoverTime());
+            }
+            if (deployment != null) {
+                deployment.save();
+            }
+            if (cache != null) {
+                cache.evict();
+            }
+        }
+    }
+
+    /**
+     * A document to render into an output directory.
+     */
+    private final class DocumentRendering {
+        private final DocumentRenderer docRenderer;
+
+        private final RenderTarget target;
+
+        private final SharedParse sharedParse;
+
+        DocumentRendering(DocumentRenderer docRenderer, RenderTarget target, SharedParse sharedParse) {
+            this.docRenderer = docRenderer;
+            this.target = target;
+            this.sharedParse = sharedParse;
+        }
+
+        void render() throws RendererException, IOException {
+            DefaultSiteRenderer.this.render(docRenderer, target, sharedParse);
+        }
+    }
+
+    /**
+     * The parse of a Doxia source shared by the renderings of several locales, done on first need unless found in
+     * the render cache: the renderings sharing it are rendered in order by a single task.
+     */
+    private final class SharedParse {
+        private final RenderCache cache;
+
+        private DocumentContent content;
+
+        /**
+         * @param cache the render cache, may be {@code null}
+         */
+        SharedParse(RenderCache cache) {
+            this.cache = cache;
+        }
+
+        DocumentContent get(DocumentRenderingContext docRenderingContext, SiteRenderingContext siteContext)
+                throws RendererException {
+            if (content == null) {
+                String key = null;
+                if (cache != null) {
+                    try {
+                        key = cache.getKey(
+                                docRenderingContext, siteContext, getParser(docRenderingContext.getParserId()));
+                    } catch (IOException | ParserNotFoundException e) {
+                        throw new RendererException(
+                                "Error while processing '" + docRenderingContext.getDoxiaSourcePath() + "'", e);
+                    }
+                    content = (key == null) ? null : cache.get(key, docRenderingContext);
+                }
+
+                if (content == null) {
+                    content = parseDocument(docRenderingContext, siteContext);
+                    if (key != null) {
+                        cache.put(key, content);
+                    }
+                } else if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Using cached content of " + docRenderingContext.getDoxiaSourcePath());
                 }
             }
+            return content;
+        }
+    }
+
+    private static void throwRenderingFailure(Exception failure) throws RendererException, IOException {
+        if (failure instanceof RendererException) {
+            throw (RendererException) failure;
+        } else if (failure instanceof IOException) {
+            throw (IOException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
         }
+        throw new RendererException(failure.getMessage(), failure);
     }
 
     /** {@inheritDoc} */
     public void renderDocument(
             Writer writer, DocumentRenderingContext docRenderingContext, SiteRenderingContext siteContext)
             throws RendererException {
+        Object event = SiteRenderingEvents.beginRenderDocument();
+        try {
+            DocumentContent content = parseDocument(docRenderingContext, siteContext);
+
+            long start = System.nanoTime();
+            mergeDocumentIntoSite(writer, content, siteContext);
+            RenderReport.record(docRenderingContext.getRenderTimes(), RenderReport.Phase.MERGE, start);
+        } finally {
+            SiteRenderingEvents.endRenderDocument(event, docRenderingContext, siteContext);
+        }
+    }
+
+    /**
+     * Render a document whose parse is shared with the same document in other locales: only the merge into the
+     * site template is done for the locale of the site rendering context.
+     */
+    private void renderSharedDocument(
+            Writer writer,
+            DocumentRenderingContext docRenderingContext,
+            SiteRenderingContext siteContext,
+            SharedParse sharedParse)
+            throws RendererException {
+        Object event = SiteRenderingEvents.beginRenderDocument();
+        try {
+            DocumentContent content =
+                    new LocaleDocumentContent(sharedParse.get(docRenderingContext, siteContext), docRenderingContext);
+
+            long start = System.nanoTime();
+            mergeDocumentIntoSite(writer, content, siteContext);
+            RenderReport.record(docRenderingContext.getRenderTimes(), RenderReport.Phase.MERGE, start);
+        } finally {
+            SiteRenderingEvents.endRenderDocument(event, docRenderingContext, siteContext);
+        }
+    }
+
+    /**
+     * Parse a document written in a Doxia markup language, processing Velocity first if required.
+     *
+     * @return the parsed content, to be merged into the site template
+     */
+    private DocumentContent parseDocument(
+            DocumentRenderingContext docRenderingContext, SiteRenderingContext siteContext) throws RendererException {
         SiteRendererSink sink = new SiteRendererSink(docRenderingContext);
 
         File doc = new File(docRenderingContext.getBasedir(), docRenderingContext.getInputName());
 
+        RenderReport.DocumentTimes times = docRenderingContext.getRenderTimes();
+
         Reader reader = null;
+        PipedDocumentReader velocityReader = null;
         try {
             String resource = doc.getAbsolutePath();
 
-            Parser parser = doxia.getParser(docRenderingContext.getParserId());
-            ParserConfigurator configurator = siteContext.getParserConfigurator();
-            boolean isConfigured = false;
-            if (configurator != null) {
-                isConfigured = configurator.configure(docRenderingContext.getParserId(), doc.toPath(), parser);
-            }
-            if (!isConfigured) {
-                // DOXIASITETOOLS-146 don't render comments from source markup
-                parser.setEmitComments(false);
-                parser.setEmitAnchorsForIndexableEntries(true);
-            }
+            Parser parser = getParser(docRenderingContext.getParserId());
 
             // TODO: DOXIA-111: the filter used here must be checked generally.
             if (docRenderingContext.getAttribute("velocity") != null) {
@@ -387,32 +959,22 @@ public class DefaultSiteRenderer implements Renderer {
                 try {
                     Context vc = createDocumentVelocityContext(docRenderingContext, siteContext);
 
-                    StringWriter sw = new StringWriter();
+                    velocityReader = mergeVelocityDocument(resource, vc, docRenderingContext, siteContext);
 
-                    velocity.getEngine().mergeTemplate(resource, siteContext.getInputEncoding(), vc, sw);
-
-                    String doxiaContent = sw.toString();
-
-                    if (siteContext.getProcessedContentOutput() != null) {
-                        // save Velocity processing result, ie the Doxia content that will be parsed after
-                        saveVelocityProcessedContent(docRenderingContext, siteContext, doxiaContent);
-                    }
-
-                    reader = new StringReader(doxiaContent);
+                    reader = velocityReader;
                 } catch (VelocityException e) {
-                    throw new RendererException(
-                            "Error parsing " + docRenderingContext.getDoxiaSourcePath() + " as a Velocity template", e);
+                    throw velocityException(docRenderingContext, e);
                 }
 
                 if (parser.getType() == Parser.XML_TYPE && siteContext.isValidate()) {
-                    reader = validate(reader, resource);
+                    reader = validate(reader, doc, times);
                 }
             } else {
                 switch (parser.getType()) {
                     case Parser.XML_TYPE:
                         reader = ReaderFactory.newXmlReader(doc);
                         if (siteContext.isValidate()) {
-                            reader = validate(reader, resource);
+                            reader = validate(reader, doc, times);
                         }
                         break;
 
@@ -423,7 +985,39 @@ public class DefaultSiteRenderer implements Renderer {
                 }
             }
 
-            doxia.parse(reader, docRenderingContext.getParserId(), sink, docRenderingContext.getDoxiaSourcePath());
+            try {
+                // parsers are container singletons: configuration and parsing must not interleave between threads
+                synchronized (parser) {
+                    ParserConfigurator configurator = siteContext.getParserConfigurator();
+                    boolean isConfigured = false;
+                    if (configurator != null) {
+                        isConfigured = configurator.configure(docRenderingContext.getParserId(), doc.toPath(), parser);
+                    }
+                    if (!isConfigured) {
+                        // DOXIASITETOOLS-146 don't render comments from source markup
+                        parser.setEmitComments(false);
+                        parser.setEmitAnchorsForIndexableEntries(true);
+                    }
+
+                    long start = System.nanoTime();
+                    // on the cached parser: Doxia.parse() would look it up again
+                    parser.parse(reader, sink, docRenderingContext.getDoxiaSourcePath());
+                    RenderReport.record(times, RenderReport.Phase.PARSE, start);
+                }
+
+                if (reader instanceof ValidatingReader) {
+                    ((ValidatingReader) reader).awaitValidation();
+                }
+            } finally {
+                if (velocityReader != null) {
+                    // a Velocity failure causes parsing errors: report it instead
+                    try {
+                        velocityReader.awaitProduction();
+                    } catch (VelocityException e) {
+                        throw velocityException(docRenderingContext, e);
+                    }
+                }
+            }
         } catch (ParserNotFoundException e) {
             throw new RendererException("Error getting a parser for '" + doc + "'", e);
         } catch (ParseException e) {
@@ -443,12 +1037,111 @@ public class DefaultSiteRenderer implements Renderer {
             IOUtil.close(reader);
         }
 
-        mergeDocumentIntoSite(writer, (DocumentContent) sink, siteContext);
+        return sink;
     }
 
-    private void saveVelocityProcessedContent(
-            DocumentRenderingContext docRenderingContext, SiteRenderingContext siteContext, String doxiaContent)
-            throws IOException {
+    /**
+     * Content parsed once for several locales, seen with the document rendering context of one locale.
+     */
+    private static final class LocaleDocumentContent implements DocumentContent {
+        private final DocumentContent content;
+
+        private final DocumentRenderingContext docRenderingContext;
+
+        LocaleDocumentContent(DocumentContent content, DocumentRenderingContext docRenderingContext) {
+            this.content = content;
+            this.docRenderingContext = docRenderingContext;
+        }
+
+        public String getTitle() {
+            return content.getTitle();
+        }
+
+        public String getDate() {
+            return content.getDate();
+        }
+
+        public List<String> getAuthors() {
+            return content.getAuthors();
+        }
+
+        public String getHead() {
+            return content.getHead();
+        }
+
+        public String getBody() {
+            return content.getBody();
+        }
+
+        @Override
+        public boolean hasBody() {
+            return content.hasBody();
+        }
+
+        @Override
+        public int getBodyLength() {
+            return content.getBodyLength();
+        }
+
+        @Override
+        public void writeBodyTo(Writer writer) throws IOException {
+            content.writeBodyTo(writer);
+        }
+
+        public DocumentRenderingContext getRenderingContext() {
+            return docRenderingContext;
+        }
+    }
+
+    /**
+     * Parsers are container singletons, configured before each parse: they are looked up once per parser id.
+     */
+    private Parser getParser(String parserId) throws ParserNotFoundException {
+        Parser parser = parsers.get(parserId);
+        if (parser == null) {
+            parser = doxia.getParser(parserId);
+            parsers.put(parserId, parser);
+        }
+        return parser;
+    }
+
+    private static RendererException velocityException(
+            DocumentRenderingContext docRenderingContext, VelocityException e) {
+        return new RendererException(
+                "Error parsing " + docRenderingContext.getDoxiaSourcePath() + " as a Velocity template", e);
+    }
+
+    /**
+     * Merge a Velocity document in a pipeline thread while it is read, for the Doxia parser to parse it with bounded
+     * memory. The processed content output, if any, is written by the same thread.
+     */
+    private PipedDocumentReader mergeVelocityDocument(
+            String resource,
+            Context vc,
+            DocumentRenderingContext docRenderingContext,
+            SiteRenderingContext siteContext) {
+        RenderReport.DocumentTimes times = docRenderingContext.getRenderTimes();
+        return new PipedDocumentReader(pipelineExecutor, writer -> {
+            long start = System.nanoTime();
+            if (siteContext.getProcessedContentOutput() == null) {
+                velocity.getEngine().mergeTemplate(resource, siteContext.getInputEncoding(), vc, writer);
+            } else {
+                // save Velocity processing result, ie the Doxia content that will be parsed after
+                try (Writer processedContent = newVelocityProcessedContentWriter(docRenderingContext, siteContext)) {
+                    velocity.getEngine()
+                            .mergeTemplate(
+                                    resource,
+                                    siteContext.getInputEncoding(),
+                                    vc,
+                                    new TeeWriter(writer, processedContent));
+                }
+            }
+            RenderReport.record(times, RenderReport.Phase.VELOCITY, start);
+        });
+    }
+
+    private static Writer newVelocityProcessedContentWriter(
+            DocumentRenderingContext docRenderingContext, SiteRenderingContext siteContext) throws IOException {
         if (!siteContext.getProcessedContentOutput().exists()) {
             siteContext.getProcessedContentOutput().mkdirs();
         }
@@ -463,7 +1156,7 @@ public class DefaultSiteRenderer implements Renderer {
             outputParent.mkdirs();
         }
 
-        FileUtils.fileWrite(outputFile, siteContext.getInputEncoding(), doxiaContent);
+        return WriterFactory.newWriter(outputFile, siteContext.getInputEncoding());
     }
 
     /**
@@ -473,12 +1166,22 @@ public class DefaultSiteRenderer implements Renderer {
      * @return a Velocity tools managed context
      */
     protected Context createToolManagedVelocityContext(SiteRenderingContext siteRenderingContext) {
+        return getToolManager(siteRenderingContext).createContext();
+    }
+
+    private SiteToolManager getToolManager(SiteRenderingContext siteRenderingContext) {
         Locale locale = siteRenderingContext.getLocale();
         String dateFormat = siteRenderingContext.getSiteModel().getPublishDate().getFormat();
         String timeZoneId = siteRenderingContext.getSiteModel().getPublishDate().getTimezone();
         TimeZone timeZone =
                 "system".equalsIgnoreCase(timeZoneId) ? TimeZone.getDefault() : TimeZone.getTimeZone(timeZoneId);
 
+        // configuring tools scans the classpath: do it once per locale, date format and time zone
+        String key = locale + "|" + dateFormat + "|" + timeZone.getID();
+        return toolManagers.computeIfAbsent(key, k -> createToolManager(locale, dateFormat, timeZone));
+    }
+
+    private static SiteToolManager createToolManager(Locale locale, String dateFormat, TimeZone timeZone) {
         EasyFactoryConfiguration config = new EasyFactoryConfiguration(false);
         config.property("safeMode", Boolean.FALSE);
         config.toolbox(Scope.REQUEST)
@@ -511,10 +1214,12 @@ public class DefaultSiteRenderer implements Renderer {
             config.addConfiguration(customConfig);
         }
 
-        ToolManager manager = new ToolManager(false, false);
+        SiteToolManager manager = new SiteToolManager();
         manager.configure(config);
+        // application toolbox is lazily created: create it now, before sharing the manager between threads
+        manager.getApplicationToolbox();
 
-        return manager.createContext();
+        return manager;
     }
 
     /**
@@ -526,55 +1231,86 @@ public class DefaultSiteRenderer implements Renderer {
      */
     protected Context createDocumentVelocityContext(
             DocumentRenderingContext docRenderingContext, SiteRenderingContext siteRenderingContext) {
-        Context context = createToolManagedVelocityContext(siteRenderingContext);
+        // site-level data objects and tools are shared by every document: only document ones are put in the context
+        Map<String, Object> siteValues = getSiteVelocityValues(siteRenderingContext);
+        Context context = getToolManager(siteRenderingContext).createSiteContext(siteValues);
+
         // ----------------------------------------------------------------------
         // Data objects
         // ----------------------------------------------------------------------
 
-        context.put("relativePath", docRenderingContext.getRelativePath());
+        // site-level values, including template properties, override document values
+        Map<String, Object> documentValues = new LinkedHashMap<>();
+
+        documentValues.put("relativePath", docRenderingContext.getRelativePath());
 
         String currentFilePath = docRenderingContext.getOutputName();
-        context.put("currentFilePath", currentFilePath);
+        documentValues.put("currentFilePath", currentFilePath);
         // TODO Deprecated -- will be removed!
-        context.put("currentFileName", currentFilePath);
+        documentValues.put("currentFileName", currentFilePath);
 
         String alignedFilePath = PathTool.calculateLink(currentFilePath, docRenderingContext.getRelativePath());
-        context.put("alignedFilePath", alignedFilePath);
+        documentValues.put("alignedFilePath", alignedFilePath);
         // TODO Deprecated -- will be removed!
-        context.put("alignedFileName", alignedFilePath);
+        documentValues.put("alignedFileName", alignedFilePath);
+
+        for (Map.Entry<String, Object> entry : documentValues.entrySet()) {
+            if (!siteValues.containsKey(entry.getKey())) {
+                context.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return context;
+    }
 
-        context.put("site", siteRenderingContext.getSiteModel());
+    /**
+     * Get the site-level Velocity values of a site rendering context, computed once and shared by every document.
+     */
+    private Map<String, Object> getSiteVelocityValues(SiteRenderingContext siteRenderingContext) {
+        Map<String, Object> siteValues = siteRenderingContext.getVelocityValues();
+        if (siteValues == null) {
+            siteValues = createSiteVelocityValues(siteRenderingContext);
+            siteRenderingContext.setVelocityValues(siteValues);
+        }
+        return siteValues;
+    }
+
+    private Map<String, Object> createSiteVelocityValues(SiteRenderingContext siteRenderingContext) {
+        Map<String, Object> values = new HashMap<>();
+
+        values.put("site", siteRenderingContext.getSiteModel());
         // TODO Deprecated -- will be removed!
-        context.put("decoration", siteRenderingContext.getSiteModel());
+        values.put("decoration", siteRenderingContext.getSiteModel());
 
-        context.put("locale", siteRenderingContext.getLocale());
-        context.put("supportedLocales", Collections.unmodifiableList(siteRenderingContext.getSiteLocales()));
+        values.put("locale", siteRenderingContext.getLocale());
+        values.put(
+                "supportedLocales",
+                Collections.unmodifiableList(new ArrayList<>(siteRenderingContext.getSiteLocales())));
 
-        context.put("publishDate", siteRenderingContext.getPublishDate());
+        values.put("publishDate", siteRenderingContext.getPublishDate());
 
         if (DOXIA_SITE_RENDERER_VERSION != null) {
-            context.put("doxiaSiteRendererVersion", DOXIA_SITE_RENDERER_VERSION);
+            values.put("doxiaSiteRendererVersion", DOXIA_SITE_RENDERER_VERSION);
         }
 
         // Add user properties
         Map<String, ?> templateProperties = siteRenderingContext.getTemplateProperties();
 
         if (templateProperties != null) {
-            for (Map.Entry<String, ?> entry : templateProperties.entrySet()) {
-                context.put(entry.getKey(), entry.getValue());
-            }
+            values.putAll(templateProperties);
         }
 
         // ----------------------------------------------------------------------
         // Tools
         // ----------------------------------------------------------------------
 
-        context.put("PathTool", new PathTool());
+        values.put("PathTool", new PathTool());
 
-        context.put("StringUtils", new StringUtils());
+        values.put("StringUtils", new StringUtils());
 
-        context.put("plexus", plexus);
-        return context;
+        values.put("plexus", plexus);
+
+        return Collections.unmodifiableMap(values);
     }
 
     /**
@@ -622,7 +1358,10 @@ public class DefaultSiteRenderer implements Renderer {
 
         context.put("headContent", content.getHead());
 
-        context.put("bodyContent", content.getBody());
+        // the body String is only built if the template uses it: $bodyRenderer streams the body to the output instead
+        DocumentBody body = content.hasBody() ? new DocumentBody(content) : null;
+        context.put("bodyContent", (body == null) ? null : new SiteToolManager.LazyValue(body::toString));
+        context.put("bodyRenderer", body);
 
         // document date (got from Doxia Sink date() API)
         context.put("documentDate", content.getDate());
@@ -641,6 +1380,8 @@ public class DefaultSiteRenderer implements Renderer {
     /** {@inheritDoc} */
     public void mergeDocumentIntoSite(Writer writer, DocumentContent content, SiteRenderingContext siteRenderingContext)
             throws RendererException {
+        Object event = SiteRenderingEvents.beginMergeDocument();
+
         String templateName = siteRenderingContext.getTemplateName();
 
         LOGGER.debug("Processing Velocity for template " + templateName + " on "
@@ -648,15 +1389,14 @@ public class DefaultSiteRenderer implements Renderer {
 
         Context context = createSiteTemplateVelocityContext(content, siteRenderingContext);
 
-        ClassLoader old = null;
+        ClassLoader old = Thread.currentThread().getContextClassLoader();
 
-        if (siteRenderingContext.getTemplateClassLoader() != null) {
+        boolean swapClassLoader = siteRenderingContext.getTemplateClassLoader() != null;
+        if (swapClassLoader) {
             // -------------------------------------------------------------------------
             // If no template classloader was set we'll just use the context classloader
             // -------------------------------------------------------------------------
 
-            old = Thread.currentThread().getContextClassLoader();
-
             Thread.currentThread().setContextClassLoader(siteRenderingContext.getTemplateClassLoader());
         }
 
@@ -668,9 +1408,10 @@ public class DefaultSiteRenderer implements Renderer {
                 SkinModel skinModel = siteRenderingContext.getSkinModel();
                 String encoding = (skinModel == null) ? null : skinModel.getEncoding();
 
-                template = (encoding == null)
-                        ? velocity.getEngine().getTemplate(templateName)
-                        : velocity.getEngine().getTemplate(templateName, encoding);
+                template = (skin == null)
+                        ? loadTemplate(templateName, encoding)
+                        : templateCache.getTemplate(
+                                skin, templateName, encoding, () -> loadTemplate(templateName, encoding));
             } catch (ParseErrorException pee) {
                 throw new RendererException(
                         "Velocity parsing error while reading the site template " + "from " + skin.getId() + " skin",
@@ -681,9 +1422,10 @@ public class DefaultSiteRenderer implements Renderer {
             }
 
             try {
-                StringWriter sw = new StringWriter();
-                template.merge(context, sw);
-                writer.write(sw.toString().replaceAll("\r?\n", SystemUtils.LINE_SEPARATOR));
+                // stream the merge to the writer, normalizing line separators on the fly
+                Writer out = new LineSeparatorWriter(writer, SystemUtils.LINE_SEPARATOR);
+                template.merge(context, out);
+                out.close();
             } catch (VelocityException ve) {
                 throw new RendererException("Velocity error while merging site template.", ve);
             } catch (IOException ioe) {
@@ -692,12 +1434,48 @@ public class DefaultSiteRenderer implements Renderer {
         } finally {
             IOUtil.close(writer);
 
-            if (old != null) {
+            if (swapClassLoader) {
+                // restore even a null classloader: pooled rendering threads must not keep the skin one
                 Thread.currentThread().setContextClassLoader(old);
             }
+
+            SiteRenderingEvents.endMergeDocument(event, content, siteRenderingContext);
         }
     }
 
+    private Template loadTemplate(String templateName, String encoding) {
+        return (encoding == null)
+                ? velocity.getEngine().getTemplate(templateName)
+                : velocity.getEngine().getTemplate(templateName, encoding);
+    }
+
+    /**
+     * Release the skin archives opened, the site templates parsed from them, the Velocity tool managers, the parsers
+     * looked up and the pipeline threads started during the build.
+     *
+     * @since 2.1
+     */
+    @Override
+    public void dispose() {
+        skinArchives.close();
+        // templates reference the class loaders of the closed skin archives
+        templateCache.clear();
+        toolManagers.clear();
+        parsers.clear();
+        pipelineExecutor.close();
+    }
+
+    /**
+     * Get the cache of parsed site templates, shared by every rendering made with this renderer.
+     * Only templates coming from a skin artifact are cached.
+     *
+     * @return the site template cache
+     * @since 2.1
+     */
+    public SiteTemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
     private SiteRenderingContext createSiteRenderingContext(
             Map<String, ?> attributes, SiteModel siteModel, String defaultTitle, Locale locale) {
         SiteRenderingContext context = new SiteRenderingContext();
@@ -718,22 +1496,17 @@ public class DefaultSiteRenderer implements Renderer {
 
         context.setSkin(skin);
 
-        ZipFile zipFile = getZipFile(skin.getFile());
-        InputStream in = null;
+        SkinArchive skinArchive = skinArchives.get(skin.getFile());
 
         try {
-            if (zipFile.getEntry(SKIN_TEMPLATE_LOCATION) == null) {
+            if (!skinArchive.hasEntry(SKIN_TEMPLATE_LOCATION)) {
                 throw new RendererException("Skin does not contain template at " + SKIN_TEMPLATE_LOCATION);
             }
             context.setTemplateName(SKIN_TEMPLATE_LOCATION);
-            context.setTemplateClassLoader(
-                    new URLClassLoader(new URL[] {skin.getFile().toURI().toURL()}));
+            context.setTemplateClassLoader(skinArchive.getClassLoader());
 
-            ZipEntry skinDescriptorEntry = zipFile.getEntry(SkinModel.SKIN_DESCRIPTOR_LOCATION);
-            if (skinDescriptorEntry != null) {
-                in = zipFile.getInputStream(skinDescriptorEntry);
-
-                SkinModel skinModel = new SkinXpp3Reader().read(in);
+            SkinModel skinModel = skinArchive.getSkinModel();
+            if (skinModel != null) {
                 context.setSkinModel(skinModel);
 
                 String toolsPrerequisite = skinModel.getPrerequisites() == null
@@ -757,9 +1530,6 @@ public class DefaultSiteRenderer implements Renderer {
                     "Failed to parse " + SkinModel.SKIN_DESCRIPTOR_LOCATION + " skin descriptor from " + skin.getId()
                             + " skin",
                     e);
-        } finally {
-            IOUtil.close(in);
-            closeZipFile(zipFile);
         }
 
         return context;
@@ -800,42 +1570,50 @@ public class DefaultSiteRenderer implements Renderer {
 
     /** {@inheritDoc} */
     public void copyResources(SiteRenderingContext siteRenderingContext, File outputDirectory) throws IOException {
-        ZipFile file = getZipFile(siteRenderingContext.getSkin().getFile());
-
-        try {
-            for (Enumeration<? extends ZipEntry> e = file.entries(); e.hasMoreElements(); ) {
-                ZipEntry entry = e.nextElement();
-
-                if (!entry.getName().startsWith("META-INF/")) {
-                    File destFile = new File(outputDirectory, entry.getName());
-                    if (!entry.isDirectory()) {
-                        if (destFile.exists()) {
-                            // don't override existing content: avoids extra rewrite with same content or extra site
-                            // resource
-                            continue;
-                        }
-
-                        destFile.getParentFile().mkdirs();
-
-                        copyFileFromZip(file, entry, destFile);
-                    } else {
-                        destFile.mkdirs();
-                    }
-                }
-            }
-        } finally {
-            closeZipFile(file);
+        Object event = SiteRenderingEvents.beginCopyResources();
+        DeploymentManifest deployment = siteRenderingContext.isWriteIfChanged()
+                ? siteRenderingContext.getDeploymentManifest(outputDirectory)
+                : null;
+        ResourceCopier copier = new ResourceCopier(GzipPrecompressor.open(siteRenderingContext), deployment);
+
+        SkinArchive skinArchive =
+                skinArchives.get(siteRenderingContext.getSkin().getFile());
+        for (ZipEntry entry : skinArchive.getResources()) {
+            copier.add(skinArchive, entry);
         }
 
-        // Copy extra site resources
+        // Add extra site resources, overriding skin ones
+        boolean copyDirectoryOverridden = isCopyDirectoryOverridden();
+        List<File> overriddenCopies = new ArrayList<>();
         for (SiteDirectory siteDirectory : siteRenderingContext.getSiteDirectories()) {
             File resourcesDirectory = new File(siteDirectory.getPath(), "resources");
 
-            if (resourcesDirectory != null && resourcesDirectory.exists()) {
-                copyDirectory(resourcesDirectory, outputDirectory);
+            if (resourcesDirectory.exists()) {
+                if (copyDirectoryOverridden) {
+                    overriddenCopies.add(resourcesDirectory);
+                } else {
+                    addDirectory(copier, resourcesDirectory);
+                }
             }
         }
 
+        // only copy resources with different size or content than the ones already in the output directory
+        copier.copyTo(outputDirectory, siteRenderingContext.getParallelism());
+        List<String> paths = copier.getPaths();
+        for (File resourcesDirectory : overriddenCopies) {
+            // the copy of a subclass overriding copyDirectory() still overrides skin resources
+            copyDirectory(resourcesDirectory, outputDirectory);
+            ResourceCopier scanned = new ResourceCopier();
+            addDirectory(scanned, resourcesDirectory);
+            paths.addAll(scanned.getPaths());
+        }
+        SiteRenderingEvents.endCopyResources(
+                event,
+                siteRenderingContext,
+                copier.getCopiedCount(),
+                copier.getUnchangedCount(),
+                copier.getCopiedBytes());
+
         // Check for the existence of /css/site.css
         File siteCssFile = new File(outputDirectory, "/css/site.css");
         if (!siteCssFile.exists()) {
@@ -859,16 +1637,59 @@ public class DefaultSiteRenderer implements Renderer {
             } finally {
                 IOUtil.close(writer);
             }
+            if (deployment != null) {
+                deployment.added("css/site.css");
+            }
+        }
+
+        if (deployment != null) {
+            deployment.save();
+        }
+
+        if (siteRenderingContext.isPruneStaleOutput()) {
+            // css/site.css is always there: copied or created
+            paths.add("css/site.css");
+            siteRenderingContext.addCopiedResources(outputDirectory, paths);
         }
     }
 
-    private static void copyFileFromZip(ZipFile file, ZipEntry entry, File destFile) throws IOException {
-        FileOutputStream fos = new FileOutputStream(destFile);
+    /** {@inheritDoc} */
+    @Override
+    public void pruneStaleOutput(SiteRenderingContext siteRenderingContext, File outputDirectory) throws IOException {
+        if (!siteRenderingContext.isPruneStaleOutput()
+                || !(siteRenderingContext.isRenderManifest() || siteRenderingContext.isWriteIfChanged())) {
+            return;
+        }
 
-        try {
-            IOUtil.copy(file.getInputStream(entry), fos);
-        } finally {
-            IOUtil.close(fos);
+        RenderManifest manifest =
+                RenderManifest.load(outputDirectory, siteRenderingContext, DOXIA_SITE_RENDERER_VERSION);
+        List<String> deleted = new ArrayList<>();
+
+        Set<String> resources = siteRenderingContext.getCopiedResources(outputDirectory);
+        if (resources != null) {
+            deleted.addAll(manifest.updateResources(outputDirectory, resources));
+        }
+        // without any rendering, every document would look stale
+        if (siteRenderingContext.isRendered(outputDirectory)) {
+            deleted.addAll(manifest.pruneDocuments(
+                    outputDirectory, siteRenderingContext.getProducedDocuments(outputDirectory)));
+        }
+
+        DeploymentManifest deployment = siteRenderingContext.isWriteIfChanged()
+                ? siteRenderingContext.getDeploymentManifest(outputDirectory)
+                : null;
+        for (String outputPath : deleted) {
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Deleted stale output " + outputPath);
+            }
+            if (deployment != null) {
+                deployment.deleted(outputPath);
+            }
+        }
+
+        manifest.save();
+        if (deployment != null) {
+            deployment.save();
         }
     }
 
@@ -878,45 +1699,58 @@ public class DefaultSiteRenderer implements Renderer {
      * @param source      source file to be copied
      * @param destination destination file
      * @throws java.io.IOException if any
+     * @deprecated site resources directories are copied by {@link #copyResources(SiteRenderingContext, File)}
+     *             together with skin resources, in parallel and with precompression. It only calls this method for
+     *             them when a subclass overrides it: the files it copies are then neither precompressed nor recorded
+     *             in the deployment manifest.
      */
+    @Deprecated
     protected void copyDirectory(File source, File destination) throws IOException {
         if (source.exists()) {
-            DirectoryScanner scanner = new DirectoryScanner();
-
-            String[] includedResources = {"**/*"};
+            ResourceCopier copier = new ResourceCopier();
+            addDirectory(copier, source);
+            copier.copyTo(destination, 1);
+        }
+    }
 
-            scanner.setIncludes(includedResources);
+    /**
+     * Does a subclass override {@link #copyDirectory(File, File)}, the former extension point of the copy of site
+     * resources directories?
+     */
+    private boolean isCopyDirectoryOverridden() {
+        for (Class<?> type = getClass(); type != DefaultSiteRenderer.class; type = type.getSuperclass()) {
+            try {
+                type.getDeclaredMethod("copyDirectory", File.class, File.class);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // look in the superclass
+            }
+        }
+        return false;
+    }
 
-            scanner.addDefaultExcludes();
+    private static void addDirectory(ResourceCopier copier, File source) {
+        DirectoryScanner scanner = new DirectoryScanner();
 
-            scanner.setBasedir(source);
+        String[] includedResources = {"**/*"};
 
-            scanner.scan();
+        scanner.setIncludes(includedResources);
 
-            List<String> includedFiles = Arrays.asList(scanner.getIncludedFiles());
+        scanner.addDefaultExcludes();
 
-            for (String name : includedFiles) {
-                File sourceFile = new File(source, name);
+        scanner.setBasedir(source);
 
-                File destinationFile = new File(destination, name);
+        scanner.scan();
 
-                FileUtils.copyFile(sourceFile, destinationFile);
-            }
+        for (String name : scanner.getIncludedFiles()) {
+            copier.add(name.replace(File.separatorChar, '/'), new File(source, name));
         }
     }
 
-    private Reader validate(Reader source, String resource) throws ParseException, IOException {
-        LOGGER.debug("Validating: " + resource);
-
-        try {
-            String content = IOUtil.toString(new BufferedReader(source));
-
-            new XmlValidator().validate(content);
+    private Reader validate(Reader source, File doc, RenderReport.DocumentTimes times) {
+        LOGGER.debug("Validating: " + doc);
 
-            return new StringReader(content);
-        } finally {
-            IOUtil.close(source);
-        }
+        return xmlValidator.validate(source, doc, times);
     }
 
     // TODO replace with StringUtils.endsWithIgnoreCase() from maven-shared-utils 0.7
@@ -928,30 +1762,6 @@ public class DefaultSiteRenderer implements Renderer {
         return str.regionMatches(true, str.length() - searchStr.length(), searchStr, 0, searchStr.length());
     }
 
-    private static ZipFile getZipFile(File file) throws IOException {
-        if (file == null) {
-            throw new IOException("Error opening ZipFile: null");
-        }
-
-        try {
-            // TODO: plexus-archiver, if it could do the excludes
-            return new ZipFile(file);
-        } catch (ZipException ex) {
-            IOException ioe = new IOException("Error opening ZipFile: " + file.getAbsolutePath());
-            ioe.initCause(ex);
-            throw ioe;
-        }
-    }
-
-    private static void closeZipFile(ZipFile zipFile) {
-        // TODO: move to plexus utils
-        try {
-            zipFile.close();
-        } catch (IOException e) {
-            // ignore
-        }
-    }
-
     private static String getSiteRendererVersion() {
         InputStream inputStream = DefaultSiteRenderer.class.getResourceAsStream(
                 "/META-INF/" + "maven/org.apache.maven.doxia/doxia-site-renderer/pom.properties");
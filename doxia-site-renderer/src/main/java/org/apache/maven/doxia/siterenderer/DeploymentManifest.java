@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Output files actually added, changed or deleted by the renderings into an output directory in write-if-changed
+ * mode, written as JSON into its state directory for incremental deployments: unchanged files are only counted.
+ * Paths are relative to the output directory.
+ *
+ * @since 2.1
+ */
+class DeploymentManifest {
+    /**
+     * Name of the deployment manifest file in the state directory.
+     */
+    static final String MANIFEST_NAME = "deployment-manifest.json";
+
+    private final File manifestFile;
+
+    private final Set<String> added = new ConcurrentSkipListSet<>();
+
+    private final Set<String> changed = new ConcurrentSkipListSet<>();
+
+    private final Set<String> deleted = new ConcurrentSkipListSet<>();
+
+    private final AtomicInteger unchanged = new AtomicInteger();
+
+    /**
+     * @param stateDirectory the state directory of the output directory
+     */
+    DeploymentManifest(File stateDirectory) {
+        this.manifestFile = new File(stateDirectory, MANIFEST_NAME);
+    }
+
+    void added(String outputPath) {
+        added.add(outputPath);
+    }
+
+    void changed(String outputPath) {
+        changed.add(outputPath);
+    }
+
+    void deleted(String outputPath) {
+        deleted.add(outputPath);
+    }
+
+    void unchanged() {
+        unchanged.incrementAndGet();
+    }
+
+    Set<String> getAdded() {
+        return added;
+    }
+
+    Set<String> getChanged() {
+        return changed;
+    }
+
+    Set<String> getDeleted() {
+        return deleted;
+    }
+
+    /**
+     * @throws IOException if the manifest can't be written
+     */
+    void save() throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"unchangedCount\": ").append(unchanged.get());
+        appendPaths(json, "added", added);
+        appendPaths(json, "changed", changed);
+        appendPaths(json, "deleted", deleted);
+        json.append("\n}\n");
+
+        manifestFile.getParentFile().mkdirs();
+        try (Writer writer = Files.newBufferedWriter(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+    private static void appendPaths(StringBuilder json, String name, Set<String> paths) {
+        json.append(",\n  \"").append(name).append("\": [");
+        String separator = "\n    ";
+        for (String path : paths) {
+            json.append(separator);
+            RenderReport.appendString(json, path);
+            separator = ",\n    ";
+        }
+        json.append(paths.isEmpty() ? "]" : "\n  ]");
+    }
+}
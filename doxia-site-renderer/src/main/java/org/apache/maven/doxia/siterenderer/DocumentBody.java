@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.apache.velocity.context.InternalContextAdapter;
+import org.apache.velocity.runtime.Renderable;
+
+/**
+ * The <code>$bodyRenderer</code> of a site template: rendering the reference streams the document body into the
+ * template output with {@link DocumentContent#writeBodyTo(Writer)}, without building a String copy of it.
+ * <code>$bodyContent</code> is the body as a String, only built if the template uses it.
+ *
+ * @since 2.1
+ */
+final class DocumentBody implements Renderable {
+    private final DocumentContent content;
+
+    private String body;
+
+    DocumentBody(DocumentContent content) {
+        this.content = content;
+    }
+
+    @Override
+    public boolean render(InternalContextAdapter context, Writer writer) throws IOException {
+        if (body != null) {
+            writer.write(body);
+        } else {
+            content.writeBodyTo(writer);
+        }
+        return true;
+    }
+
+    /**
+     * Get the body as a String, built on first call.
+     */
+    @Override
+    public String toString() {
+        if (body == null) {
+            String b = content.getBody();
+            body = (b == null) ? "" : b;
+        }
+        return body;
+    }
+}
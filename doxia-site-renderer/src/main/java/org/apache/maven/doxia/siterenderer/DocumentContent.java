@@ -18,6 +18,8 @@
  */
 package org.apache.maven.doxia.siterenderer;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.List;
 
 /**
@@ -56,6 +58,40 @@ public interface DocumentContent {
      */
     String getBody();
 
+    /**
+     * Does the document have a html body?
+     * @return {@code true} if the document has a non-empty body
+     * @since 2.1
+     */
+    default boolean hasBody() {
+        return getBody() != null;
+    }
+
+    /**
+     * Get the length of the html body of the document, without building it as a String when the implementation can
+     * avoid it.
+     *
+     * @return the number of characters of the document body
+     * @since 2.1
+     */
+    default int getBodyLength() {
+        String body = getBody();
+        return (body == null) ? 0 : body.length();
+    }
+
+    /**
+     * Write the html body of the document, without building it as a String when the implementation can avoid it.
+     * @param writer the writer to write the body to
+     * @throws IOException if the body can't be written
+     * @since 2.1
+     */
+    default void writeBodyTo(Writer writer) throws IOException {
+        String body = getBody();
+        if (body != null) {
+            writer.write(body);
+        }
+    }
+
     /**
      * Get the document rendering context.
      * @return the document rendering context
@@ -52,6 +52,12 @@ public class DocumentRenderingContext {
 
     private final String generator;
 
+    private long sourceLastModified = -1;
+
+    private long sourceSize = -1;
+
+    private volatile RenderReport.DocumentTimes renderTimes;
+
     /**
      * <p>
      * Constructor for rendering context when document is not rendered from a Doxia markup source.
@@ -286,4 +292,58 @@ public class DocumentRenderingContext {
     public String getDoxiaSourcePath(String base) {
         return PathTool.calculateLink(getDoxiaSourcePath(), base);
     }
+
+    /**
+     * Get the last modification time of the source document, when collected while locating documents.
+     *
+     * @return the source last modification time in milliseconds, or <code>-1</code> if unknown
+     * @since 2.1
+     */
+    public long getSourceLastModified() {
+        return sourceLastModified;
+    }
+
+    /**
+     * Set the last modification time of the source document.
+     *
+     * @param sourceLastModified the source last modification time in milliseconds
+     * @since 2.1
+     */
+    public void setSourceLastModified(long sourceLastModified) {
+        this.sourceLastModified = sourceLastModified;
+    }
+
+    /**
+     * Get the size of the source document, when collected while locating documents.
+     *
+     * @return the source size in bytes, or <code>-1</code> if unknown
+     * @since 2.1
+     */
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    /**
+     * Set the size of the source document.
+     *
+     * @param sourceSize the source size in bytes
+     * @since 2.1
+     */
+    public void setSourceSize(long sourceSize) {
+        this.sourceSize = sourceSize;
+    }
+
+    /**
+     * @return the times of the document rendering in progress, {@code null} if not timed
+     */
+    RenderReport.DocumentTimes getRenderTimes() {
+        return renderTimes;
+    }
+
+    /**
+     * @param renderTimes the times of the document rendering in progress, {@code null} if not timed
+     */
+    void setRenderTimes(RenderReport.DocumentTimes renderTimes) {
+        this.renderTimes = renderTimes;
+    }
 }
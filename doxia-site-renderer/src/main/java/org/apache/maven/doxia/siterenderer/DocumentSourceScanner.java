@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.maven.doxia.parser.module.ParserModule;
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.MatchPatterns;
+import org.codehaus.plexus.util.StringUtils;
+
+/**
+ * Scan of a Doxia source directory shared by one or more parser modules, in a single file tree walk: each file is
+ * dispatched to the modules handling its extension through a case-insensitive extension table, and its size and last
+ * modification time are collected at the same time.
+ *
+ * @since 2.1
+ */
+class DocumentSourceScanner {
+    private static final String REGEX_HANDLER_PREFIX = "%regex[";
+
+    /**
+     * Default excludes of a directory scanner, like SCM metadata or editor backup files.
+     */
+    private static final MatchPatterns DEFAULT_EXCLUDES =
+            MatchPatterns.from(normalizePatterns(DirectoryScanner.DEFAULTEXCLUDES));
+
+    /**
+     * Lower-case extension to the module files and extension index handling it.
+     */
+    private final Map<String, List<Target>> extensions = new HashMap<>();
+
+    private final Map<ParserModule, ModuleFiles> moduleFiles = new HashMap<>();
+
+    /**
+     * @param modules the parser modules sharing the source directory
+     * @param moduleExcludes the comma-separated exclude patterns per parser id, may be {@code null}
+     */
+    DocumentSourceScanner(Collection<ParserModule> modules, Map<String, String> moduleExcludes) {
+        for (ParserModule module : modules) {
+            String excludes = (moduleExcludes == null) ? null : moduleExcludes.get(module.getParserId());
+            String[] moduleExtensions = module.getExtensions();
+
+            ModuleFiles files = new ModuleFiles(moduleExtensions.length, excludes);
+            moduleFiles.put(module, files);
+
+            for (int i = 0; i < moduleExtensions.length; i++) {
+                extensions
+                        .computeIfAbsent(moduleExtensions[i].toLowerCase(Locale.ROOT), k -> new ArrayList<>())
+                        .add(new Target(files, i));
+            }
+        }
+    }
+
+    /**
+     * Walk the source directory.
+     *
+     * @param sourceDirectory the source directory
+     * @throws IOException if the directory can't be walked
+     */
+    void scan(File sourceDirectory) throws IOException {
+        Path root = sourceDirectory.toPath();
+        Files.walkFileTree(
+                root, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile()) {
+                            dispatch(
+                                    root.relativize(file).toString(),
+                                    file.getFileName().toString(),
+                                    attrs);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        // broken link or symbolic link loop: ignored, like a directory scanner does
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+    }
+
+    private void dispatch(String path, String fileName, BasicFileAttributes attrs) {
+        if (DEFAULT_EXCLUDES.matches(path, true)) {
+            return;
+        }
+
+        SourceFile sourceFile = null;
+
+        // <name>.<extension>: any suffix after a dot may be an extension
+        for (int dot = fileName.indexOf('.'); dot >= 0; dot = fileName.indexOf('.', dot + 1)) {
+            sourceFile = dispatch(sourceFile, fileName.substring(dot + 1), false, path, attrs);
+        }
+
+        // <name>.<extension>.vm
+        if (DefaultSiteRenderer.endsWithIgnoreCase(fileName, ".vm")) {
+            String baseName = fileName.substring(0, fileName.length() - 3);
+            for (int dot = baseName.indexOf('.'); dot >= 0; dot = baseName.indexOf('.', dot + 1)) {
+                sourceFile = dispatch(sourceFile, baseName.substring(dot + 1), true, path, attrs);
+            }
+        }
+    }
+
+    private SourceFile dispatch(
+            SourceFile sourceFile, String extension, boolean velocity, String path, BasicFileAttributes attrs) {
+        List<Target> targets = extensions.get(extension.toLowerCase(Locale.ROOT));
+        if (targets != null) {
+            for (Target target : targets) {
+                if (!target.files.isExcluded(path)) {
+                    if (sourceFile == null) {
+                        sourceFile =
+                                new SourceFile(path, attrs.lastModifiedTime().toMillis(), attrs.size());
+                    }
+                    target.files.add(target.index, velocity, sourceFile);
+                }
+            }
+        }
+        return sourceFile;
+    }
+
+    /**
+     * Get the source files of a parser module extension found during the scan, in file tree walk order.
+     *
+     * @param module the parser module
+     * @param extensionIndex the index of the extension in the module extensions
+     * @param velocity {@code true} to get <code>.vm</code> files, {@code false} to get the others
+     * @return the source files
+     */
+    List<SourceFile> getFiles(ParserModule module, int extensionIndex, boolean velocity) {
+        ModuleFiles files = moduleFiles.get(module);
+        return (files == null) ? Collections.emptyList() : files.get(extensionIndex, velocity);
+    }
+
+    /**
+     * A source file found during the scan, with the attributes collected by the walk.
+     */
+    static class SourceFile {
+        private final String path;
+
+        private final long lastModified;
+
+        private final long size;
+
+        SourceFile(String path, long lastModified, long size) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        /**
+         * Get the file path relative to the source directory, with platform separators.
+         */
+        String getPath() {
+            return path;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+
+        long getSize() {
+            return size;
+        }
+    }
+
+    private static class Target {
+        private final ModuleFiles files;
+
+        private final int index;
+
+        Target(ModuleFiles files, int index) {
+            this.files = files;
+            this.index = index;
+        }
+    }
+
+    private static class ModuleFiles {
+        private final List<List<SourceFile>> docs = new ArrayList<>();
+
+        private final List<List<SourceFile>> velocityDocs = new ArrayList<>();
+
+        private final MatchPatterns excludes;
+
+        ModuleFiles(int extensionCount, String excludes) {
+            for (int i = 0; i < extensionCount; i++) {
+                docs.add(new ArrayList<>());
+                velocityDocs.add(new ArrayList<>());
+            }
+
+            if (excludes == null) {
+                this.excludes = null;
+            } else {
+                this.excludes = MatchPatterns.from(normalizePatterns(StringUtils.split(excludes, ",")));
+            }
+        }
+
+        boolean isExcluded(String path) {
+            return excludes != null && excludes.matches(path, true);
+        }
+
+        void add(int index, boolean velocity, SourceFile file) {
+            (velocity ? velocityDocs : docs).get(index).add(file);
+        }
+
+        List<SourceFile> get(int index, boolean velocity) {
+            return (velocity ? velocityDocs : docs).get(index);
+        }
+    }
+
+    /**
+     * Same normalization as <code>FileUtils.getFileNames()</code>.
+     */
+    private static String[] normalizePatterns(String[] patterns) {
+        String[] normalized = new String[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            normalized[i] = normalizePattern(patterns[i]);
+        }
+        return normalized;
+    }
+
+    private static String normalizePattern(String pattern) {
+        pattern = pattern.trim();
+
+        if (pattern.startsWith(REGEX_HANDLER_PREFIX)) {
+            if (File.separatorChar == '\\') {
+                return StringUtils.replace(pattern, "/", "\\\\");
+            }
+            return StringUtils.replace(pattern, "\\\\", "/");
+        }
+
+        pattern = pattern.replace(File.separatorChar == '/' ? '\\' : '/', File.separatorChar);
+        if (pattern.endsWith(File.separator)) {
+            pattern += "**";
+        }
+        return pattern;
+    }
+}
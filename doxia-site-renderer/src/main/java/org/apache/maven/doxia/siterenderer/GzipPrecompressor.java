@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writer of precompressed <code>.gz</code> sidecars next to output files of compressible types, for web servers
+ * serving them directly (like nginx <code>gzip_static</code>). Sidecars are compressed from the content while it is
+ * written, without buffering nor reading output files again, and only for files at least as large as a threshold: a sidecar left by a
+ * larger previous version of a file is deleted.
+ *
+ * @since 2.1
+ */
+class GzipPrecompressor {
+    /**
+     * Extension of sidecar files.
+     */
+    static final String EXTENSION = ".gz";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "atom", "css", "csv", "htm", "html", "js", "json", "map", "md", "mjs", "rss", "svg", "txt", "xhtml",
+            "xml"));
+
+    private final int threshold;
+
+    /**
+     * @param threshold the minimum size of compressed files, in bytes
+     */
+    GzipPrecompressor(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param siteRenderingContext the site rendering context
+     * @return the precompressor, or {@code null} if precompression is off
+     */
+    static GzipPrecompressor open(SiteRenderingContext siteRenderingContext) {
+        return siteRenderingContext.isPrecompress()
+                ? new GzipPrecompressor(siteRenderingContext.getPrecompressThreshold())
+                : null;
+    }
+
+    /**
+     * Is the type of an output file compressible?
+     *
+     * @param path the output file path
+     * @return {@code true} if the file name has a compressible extension
+     */
+    boolean accepts(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot >= 0
+                && COMPRESSIBLE_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Update the sidecar of an output file from its content.
+     *
+     * @param file the output file
+     * @param content the content of the output file
+     * @param written {@code false} if the output file was left unchanged
+     * @return {@code true} if the sidecar has been written
+     * @throws IOException if the sidecar can't be written
+     */
+    boolean compress(File file, ByteArrayOutputStream content, boolean written) throws IOException {
+        File sidecar = getSidecar(file);
+        if (content.size() < threshold) {
+            Files.deleteIfExists(sidecar.toPath());
+            return false;
+        }
+        if (!written && isUpToDate(file, sidecar)) {
+            return false;
+        }
+
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(sidecar.toPath()), BUFFER_SIZE)) {
+            content.writeTo(out);
+        }
+        sidecar.setLastModified(file.lastModified());
+        return true;
+    }
+
+    /**
+     * Copy a stream to an output file, writing its sidecar at the same time.
+     *
+     * @param in the content to copy
+     * @param destination the output file
+     * @return the number of bytes copied
+     * @throws IOException if the output file or the sidecar can't be written
+     */
+    long copy(InputStream in, Path destination) throws IOException {
+        long size = 0;
+        try (OutputStream out = newOutputStream(destination)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, n);
+                size += n;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Open an output file for writing, its sidecar being compressed from the content while it is written: once the
+     * stream is closed, the sidecar is kept if the file is at least as large as the threshold, deleted otherwise.
+     *
+     * @param destination the output file
+     * @return the output stream of the file
+     * @throws IOException if the output file or the sidecar can't be opened
+     */
+    OutputStream newOutputStream(Path destination) throws IOException {
+        Path sidecar = getSidecar(destination.toFile()).toPath();
+        OutputStream gzip = new GZIPOutputStream(Files.newOutputStream(sidecar), BUFFER_SIZE);
+        try {
+            return new CompressingOutputStream(Files.newOutputStream(destination), gzip, destination, sidecar);
+        } catch (IOException e) {
+            gzip.close();
+            Files.deleteIfExists(sidecar);
+            throw e;
+        }
+    }
+
+    /**
+     * Write the sidecar of an unchanged output file if it is missing or older than the file.
+     *
+     * @param destination the output file
+     * @return {@code true} if the sidecar has been written
+     * @throws IOException if the output file can't be read or the sidecar can't be written
+     */
+    boolean compressIfMissing(Path destination) throws IOException {
+        File file = destination.toFile();
+        File sidecar = getSidecar(file);
+        if (file.length() < threshold) {
+            Files.deleteIfExists(sidecar.toPath());
+            return false;
+        } else if (!isUpToDate(file, sidecar)) {
+            try (InputStream in = Files.newInputStream(destination);
+                    OutputStream out = new GZIPOutputStream(Files.newOutputStream(sidecar.toPath()), BUFFER_SIZE)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    out.write(buffer, 0, n);
+                }
+            }
+            sidecar.setLastModified(file.lastModified());
+            return true;
+        }
+        return false;
+    }
+
+    static File getSidecar(File file) {
+        return new File(file.getPath() + EXTENSION);
+    }
+
+    private static boolean isUpToDate(File file, File sidecar) {
+        return sidecar.isFile() && sidecar.lastModified() >= file.lastModified();
+    }
+
+    /**
+     * Output stream writing to a file and its sidecar, which is kept or deleted on close depending on the file size.
+     */
+    private final class CompressingOutputStream extends FilterOutputStream {
+        private final OutputStream gzip;
+
+        private final Path destination;
+
+        private final Path sidecar;
+
+        private long size;
+
+        private boolean closed;
+
+        CompressingOutputStream(OutputStream out, OutputStream gzip, Path destination, Path sidecar) {
+            super(out);
+            this.gzip = gzip;
+            this.destination = destination;
+            this.sidecar = sidecar;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            gzip.write(b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            gzip.write(b, off, len);
+            size += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try (OutputStream file = out;
+                    OutputStream compressed = gzip) {
+                file.flush();
+            }
+
+            if (size < threshold) {
+                Files.delete(sidecar);
+            } else {
+                sidecar.toFile().setLastModified(destination.toFile().lastModified());
+            }
+        }
+    }
+}
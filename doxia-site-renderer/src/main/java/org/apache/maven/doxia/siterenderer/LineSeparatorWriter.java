@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer replacing every <code>\n</code> or <code>\r\n</code> line break with a given line separator while
+ * streaming: a lone <code>\r</code> is kept as is. A <code>\r</code> at the end of a chunk is held back until the
+ * next character is known, and written on {@link #close()} if nothing follows.
+ *
+ * @since 2.1
+ */
+class LineSeparatorWriter extends FilterWriter {
+    private final String lineSeparator;
+
+    private final char[] buffer = new char[1024];
+
+    private boolean pendingCarriageReturn;
+
+    /**
+     * @param out the writer to write to
+     * @param lineSeparator the line separator to use
+     */
+    LineSeparatorWriter(Writer out, String lineSeparator) {
+        super(out);
+        this.lineSeparator = lineSeparator;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        buffer[0] = (char) c;
+        write(buffer, 0, 1);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        while (len > 0) {
+            int n = Math.min(len, buffer.length);
+            str.getChars(off, off + n, buffer, 0);
+            write(buffer, 0, n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        int start = off;
+        for (int i = off; i < end; i++) {
+            char c = cbuf[i];
+            if (pendingCarriageReturn) {
+                pendingCarriageReturn = false;
+                if (c == '\n') {
+                    out.write(lineSeparator);
+                    start = i + 1;
+                    continue;
+                }
+                out.write('\r');
+            }
+
+            if (c == '\r') {
+                out.write(cbuf, start, i - start);
+                pendingCarriageReturn = true;
+                start = i + 1;
+            } else if (c == '\n') {
+                out.write(cbuf, start, i - start);
+                out.write(lineSeparator);
+                start = i + 1;
+            }
+        }
+        out.write(cbuf, start, end - start);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (pendingCarriageReturn) {
+            pendingCarriageReturn = false;
+            out.write('\r');
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The rendering of a site in one locale, for multi-locale rendering in a single pass: the site rendering context of
+ * the locale, its output directory, and the documents to render, keyed by output file path.
+ * The documents are filled by {@link SiteRenderer#locateDocumentFiles(java.util.List)}, and other documents, like
+ * reports, can be added before rendering.
+ *
+ * @see SiteRenderer#render(java.util.List)
+ * @since 2.1
+ */
+public class LocaleRendering {
+    private final SiteRenderingContext siteRenderingContext;
+
+    private final File outputDirectory;
+
+    private final Map<String, DocumentRenderer> documents = new LinkedHashMap<>();
+
+    /**
+     * @param siteRenderingContext the site rendering context of the locale
+     * @param outputDirectory the output directory of the locale
+     */
+    public LocaleRendering(SiteRenderingContext siteRenderingContext, File outputDirectory) {
+        this.siteRenderingContext = Objects.requireNonNull(siteRenderingContext, "siteRenderingContext cannot be null");
+        this.outputDirectory = Objects.requireNonNull(outputDirectory, "outputDirectory cannot be null");
+    }
+
+    public SiteRenderingContext getSiteRenderingContext() {
+        return siteRenderingContext;
+    }
+
+    public File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * Get the documents to render, keyed by output file path.
+     *
+     * @return the modifiable map of documents
+     */
+    public Map<String, DocumentRenderer> getDocuments() {
+        return documents;
+    }
+}
@@ -35,4 +35,17 @@ public interface ParserConfigurator {
      * @return {@code true} if the parser has been configured, otherwise {@code false}
      */
     boolean configure(String parserId, Path filePath, Parser parser);
+
+    /**
+     * Get a key identifying the configuration applied by {@link #configure(String, Path, Parser)} to the parser of
+     * the source file with the given path, for the render cache to distinguish documents parsed with different
+     * configurations.
+     * @param parserId the parser id
+     * @param filePath the absolute path of the file to parse
+     * @return the configuration key, or {@code null} if it is not known: documents are then not cached
+     * @since 2.1
+     */
+    default String getConfigurationKey(String parserId, Path filePath) {
+        return null;
+    }
 }
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Reader of a document written concurrently by a producer, like a Velocity merge, through a bounded
+ * {@link CharPipe}: the document is parsed while it is produced, without ever being held in memory as a whole.
+ * When the reader is closed before the end of the document, the producer still runs to completion, its output
+ * being discarded, and {@link #awaitProduction()} reports its result.
+ *
+ * @since 2.1
+ */
+class PipedDocumentReader extends FilterReader {
+    private static final int PIPE_CAPACITY = 16 * 1024;
+
+    private final Future<?> production;
+
+    /**
+     * The producer of a document.
+     */
+    @FunctionalInterface
+    interface DocumentProducer {
+        /**
+         * @param writer the writer to write the document to, closed by the caller
+         * @throws IOException if an I/O error occurs
+         */
+        void produce(Writer writer) throws IOException;
+    }
+
+    /**
+     * @param executor the executor running the producer
+     * @param producer the producer of the document
+     */
+    PipedDocumentReader(PipelineExecutor executor, DocumentProducer producer) {
+        super(new CharPipe(PIPE_CAPACITY));
+        CharPipe pipe = (CharPipe) in;
+        production = executor.submit(() -> {
+            try {
+                producer.produce(pipe.writer());
+                pipe.finish();
+            } catch (Throwable t) {
+                pipe.abort(t);
+                throw t;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Close the reader and wait for the producer to complete.
+     *
+     * @throws IOException if the producer failed with an I/O error
+     */
+    void awaitProduction() throws IOException {
+        close();
+
+        try {
+            production.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while producing the document");
+        } catch (CancellationException e) {
+            throw new IOException("Document production cancelled", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor of the tasks producing or consuming a document alongside the rendering thread, like Velocity merges and
+ * XML validations. Tasks run in daemon threads of their own, so a rendering thread never waits for a busy pool,
+ * with the context class loader of the thread submitting them.
+ *
+ * @since 2.1
+ */
+class PipelineExecutor implements Closeable {
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    /**
+     * @param task the task to run
+     * @param <T> the type of the task result
+     * @return the future result of the task
+     */
+    <T> Future<T> submit(Callable<T> task) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return getExecutor().submit(() -> {
+            Thread thread = Thread.currentThread();
+            ClassLoader old = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
+            try {
+                return task.call();
+            } finally {
+                thread.setContextClassLoader(old);
+            }
+        });
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "doxia-site-pipeline-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Stop the threads once their tasks are done. The executor can still be used afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+}
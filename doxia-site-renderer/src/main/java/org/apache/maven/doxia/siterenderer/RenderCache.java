@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.apache.maven.doxia.parser.AbstractParser;
+import org.apache.maven.doxia.parser.Parser;
+import org.apache.maven.doxia.sink.impl.Xhtml5BaseSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of the content parsed from Doxia sources, shared between builds and output directories: title,
+ * authors, date, head and body of documents, as produced by the site renderer sink.
+ * An entry is keyed by the digest of its source, the parser with its implementation jar and version and its
+ * configuration, the Doxia core implementation (base parser, macros and base sink), the validation switch, the source
+ * and output paths, the locale, the input encoding and the renderer version. Files read by macros, like snippets,
+ * can't be part of the key: sources using macros other than the self-contained {@code echo} and {@code toc} are not
+ * cached. Once documents are rendered, the least recently used entries are evicted until the cache fits in its
+ * maximum size.
+ *
+ * @since 2.1
+ */
+class RenderCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RenderCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String ENTRY_EXTENSION = ".doxia";
+
+    /**
+     * Macro calls in APT, XDoc/XHTML and Markdown sources, with the macro name in a group.
+     */
+    private static final Pattern MACRO_PATTERN =
+            Pattern.compile("%\\{\\s*([\\w.-]+)|<macro\\s+name\\s*=\\s*[\"']([\\w.-]+)|MACRO\\{\\s*([\\w.-]+)");
+
+    /**
+     * Macros rendering only from their parameters and the document itself.
+     */
+    private static final Set<String> SELF_CONTAINED_MACROS = new HashSet<>(Arrays.asList("echo", "toc"));
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private final String rendererVersion;
+
+    private final AtomicLong written = new AtomicLong();
+
+    /**
+     * Parser implementation class to its description, per cache to not retain classes of other builds.
+     */
+    private final Map<Class<?>, String> implementations = new ConcurrentHashMap<>();
+
+    RenderCache(File directory, long maxSize, String rendererVersion) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.rendererVersion = (rendererVersion == null) ? "unknown" : rendererVersion;
+    }
+
+    /**
+     * Open the render cache of a site rendering context.
+     *
+     * @param siteRenderingContext the site rendering context
+     * @param rendererVersion the renderer version, may be {@code null}
+     * @return the render cache, or {@code null} if the site rendering context has no render cache directory
+     */
+    static RenderCache open(SiteRenderingContext siteRenderingContext, String rendererVersion) {
+        File directory = siteRenderingContext.getRenderCacheDirectory();
+        return (directory == null)
+                ? null
+                : new RenderCache(directory, siteRenderingContext.getRenderCacheSize(), rendererVersion);
+    }
+
+    /**
+     * Get the key of the cache entry of a document.
+     *
+     * @param docRenderingContext the document rendering context
+     * @param siteRenderingContext the site rendering context
+     * @param parser the parser of the document
+     * @return the key, or {@code null} if the document cannot be cached because its parser configuration is unknown or
+     *         it uses macros that may read other files
+     * @throws IOException if the source can't be read
+     */
+    String getKey(
+            DocumentRenderingContext docRenderingContext, SiteRenderingContext siteRenderingContext, Parser parser)
+            throws IOException {
+        File source = new File(docRenderingContext.getBasedir(), docRenderingContext.getInputName());
+
+        String configuration = "default";
+        ParserConfigurator configurator = siteRenderingContext.getParserConfigurator();
+        if (configurator != null) {
+            configuration = configurator.getConfigurationKey(
+                    docRenderingContext.getParserId(), source.getAbsoluteFile().toPath());
+            if (configuration == null) {
+                return null;
+            }
+        }
+
+        byte[] content = Files.readAllBytes(source.toPath());
+        if (usesExternalMacro(content)) {
+            return null;
+        }
+
+        MessageDigest digest = RenderManifest.newDigest();
+        for (String part : new String[] {
+            RenderManifest.toHex(RenderManifest.newDigest().digest(content)),
+            docRenderingContext.getParserId(),
+            implementations.computeIfAbsent(parser.getClass(), RenderCache::getImplementation),
+            configuration,
+            implementations.computeIfAbsent(AbstractParser.class, RenderCache::getImplementation),
+            implementations.computeIfAbsent(Xhtml5BaseSink.class, RenderCache::getImplementation),
+            String.valueOf(siteRenderingContext.isValidate()),
+            docRenderingContext.getDoxiaSourcePath(),
+            docRenderingContext.getOutputName(),
+            String.valueOf(siteRenderingContext.getLocale()),
+            siteRenderingContext.getInputEncoding(),
+            rendererVersion
+        }) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return RenderManifest.toHex(digest.digest());
+    }
+
+    /**
+     * Does a source use a macro that may read other files, like {@code snippet}, or an unknown macro?
+     * The source is decoded as ISO-8859-1, macro syntax being ASCII in every supported input encoding.
+     */
+    static boolean usesExternalMacro(byte[] content) {
+        Matcher matcher = MACRO_PATTERN.matcher(new String(content, StandardCharsets.ISO_8859_1));
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            if (name == null) {
+                name = matcher.group(2);
+            }
+            if (name == null) {
+                name = matcher.group(3);
+            }
+            if (!SELF_CONTAINED_MACROS.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the cached content of a document. A hit makes the entry the most recently used.
+     *
+     * @param key the key of the document
+     * @param docRenderingContext the document rendering context
+     * @return the cached content, or {@code null} if the document is not in the cache
+     */
+    DocumentContent get(String key, DocumentRenderingContext docRenderingContext) {
+        File entry = getEntryFile(key);
+        if (!entry.isFile()) {
+            return null;
+        }
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(entry.toPath()))) {
+            DocumentContent content = read(new DataInputStream(in), entry.length(), docRenderingContext);
+            entry.setLastModified(System.currentTimeMillis());
+            return content;
+        } catch (IOException e) {
+            // a corrupted or concurrently evicted entry is just a miss
+            LOGGER.debug("Ignoring render cache entry " + entry + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Put the content of a document into the cache. Failures are logged, not thrown: the cache is an optimization.
+     *
+     * @param key the key of the document
+     * @param content the content parsed from the document source
+     */
+    void put(String key, DocumentContent content) {
+        File entry = getEntryFile(key);
+        Path tmp = null;
+        try {
+            entry.getParentFile().mkdirs();
+            // written aside, then moved, for concurrent builds to never read partial entries
+            tmp = Files.createTempFile(entry.getParentFile().toPath(), key, ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                write(new DataOutputStream(out), content);
+            }
+            long size = Files.size(tmp);
+            try {
+                Files.move(tmp, entry.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+            written.addAndGet(size);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write render cache entry " + entry + ": " + e.getMessage());
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Evict the least recently used entries until the cache fits in its maximum size, if entries have been written.
+     */
+    void evict() {
+        if (written.get() == 0 || !directory.isDirectory()) {
+            return;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory.toPath(), 2)) {
+            files.filter(path -> path.getFileName().toString().endsWith(ENTRY_EXTENSION))
+                    .forEach(path -> entries.add(new Entry(path.toFile())));
+        } catch (IOException e) {
+            LOGGER.warn("Unable to evict render cache entries from " + directory + ": " + e.getMessage());
+            return;
+        }
+
+        long size = 0;
+        for (Entry entry : entries) {
+            size += entry.length;
+        }
+
+        entries.sort(Comparator.comparingLong(entry -> entry.lastModified));
+        for (Iterator<Entry> it = entries.iterator(); size > maxSize && it.hasNext(); ) {
+            Entry entry = it.next();
+            if (entry.file.delete()) {
+                size -= entry.length;
+            }
+        }
+    }
+
+    /**
+     * Describe the implementation of a parser: its class, version and jar, with the jar size and modification time
+     * for snapshots or parser modules overridden in place.
+     */
+    private static String getImplementation(Class<?> type) {
+        StringBuilder implementation = new StringBuilder(type.getName());
+        Package pkg = type.getPackage();
+        if (pkg != null && pkg.getImplementationVersion() != null) {
+            implementation.append(':').append(pkg.getImplementationVersion());
+        }
+
+        CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        if (codeSource != null && codeSource.getLocation() != null) {
+            implementation.append(':').append(codeSource.getLocation());
+            try {
+                File jar = new File(codeSource.getLocation().toURI());
+                implementation.append(':').append(jar.length()).append(':').append(jar.lastModified());
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // not a file: the location is enough
+            }
+        }
+        return implementation.toString();
+    }
+
+    private File getEntryFile(String key) {
+        return new File(new File(directory, key.substring(0, 2)), key + ENTRY_EXTENSION);
+    }
+
+    private static void write(DataOutput out, DocumentContent content) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, content.getTitle());
+        List<String> authors = content.getAuthors();
+        out.writeInt(authors.size());
+        for (String author : authors) {
+            writeString(out, author);
+        }
+        writeString(out, content.getDate());
+        writeString(out, content.getHead());
+        writeString(out, content.getBody());
+    }
+
+    /**
+     * Read an entry, lengths being checked against the entry size for a corrupted entry to fail with an IOException.
+     */
+    private static DocumentContent read(DataInput in, long size, DocumentRenderingContext docRenderingContext)
+            throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("unsupported format " + version);
+        }
+        String title = readString(in, size);
+        int authorCount = readLength(in, size);
+        List<String> authors = new ArrayList<>(authorCount);
+        for (int i = 0; i < authorCount; i++) {
+            authors.add(readString(in, size));
+        }
+        String date = readString(in, size);
+        String head = readString(in, size);
+        String body = readString(in, size);
+        return new CachedDocumentContent(title, authors, date, head, body, docRenderingContext);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInput in, long size) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        checkLength(length, size);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int readLength(DataInput in, long size) throws IOException {
+        int length = in.readInt();
+        checkLength(length, size);
+        return length;
+    }
+
+    private static void checkLength(int length, long size) throws IOException {
+        if (length < 0 || length > size) {
+            throw new IOException("corrupted entry: invalid length " + length);
+        }
+    }
+
+    /**
+     * Cache entry file, with its last use time and length read once for eviction.
+     */
+    private static final class Entry {
+        private final File file;
+
+        private final long lastModified;
+
+        private final long length;
+
+        Entry(File file) {
+            this.file = file;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+        }
+    }
+
+    /**
+     * Document content read from the render cache.
+     */
+    private static final class CachedDocumentContent implements DocumentContent {
+        private final String title;
+
+        private final List<String> authors;
+
+        private final String date;
+
+        private final String head;
+
+        private final String body;
+
+        private final DocumentRenderingContext docRenderingContext;
+
+        CachedDocumentContent(
+                String title,
+                List<String> authors,
+                String date,
+                String head,
+                String body,
+                DocumentRenderingContext docRenderingContext) {
+            this.title = title;
+            this.authors = authors;
+            this.date = date;
+            this.head = head;
+            this.body = body;
+            this.docRenderingContext = docRenderingContext;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getDate() {
+            return date;
+        }
+
+        public List<String> getAuthors() {
+            return authors;
+        }
+
+        public String getHead() {
+            return head;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public DocumentRenderingContext getRenderingContext() {
+            return docRenderingContext;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.doxia.site.SiteModel;
+import org.apache.maven.doxia.site.io.xpp3.SiteXpp3Writer;
+import org.apache.maven.doxia.site.skin.SkinModel;
+
+/**
+ * Persistent record of the documents rendered into an output directory, stored in its state directory.
+ * For each output path, it records the digests of the document source, of the effective site model, of the skin
+ * artifact and the renderer version: a document is up-to-date only if none of them changed since it was rendered.
+ * It also records every file produced into the output directory, by documents and copied resources, for outputs
+ * that are no longer produced to be pruned.
+ *
+ * @since 2.1
+ */
+class RenderManifest {
+    /**
+     * Name of the manifest file in the state directory.
+     */
+    static final String MANIFEST_NAME = "render-manifest.properties";
+
+    /**
+     * Prefix of the entries of copied resources.
+     */
+    private static final String RESOURCE_PREFIX = "resource:";
+
+    /**
+     * Fingerprint of the documents that are not up-to-date checked with the manifest, like reports.
+     */
+    private static final String NO_FINGERPRINT = "-";
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final File manifestFile;
+
+    private final String siteDigest;
+
+    private final String skinDigest;
+
+    private final String rendererVersion;
+
+    private final Map<String, String> entries = new ConcurrentHashMap<>();
+
+    private RenderManifest(File manifestFile, String siteDigest, String skinDigest, String rendererVersion) {
+        this.manifestFile = manifestFile;
+        this.siteDigest = siteDigest;
+        this.skinDigest = skinDigest;
+        this.rendererVersion = rendererVersion;
+    }
+
+    /**
+     * Load the manifest of an output directory, or start an empty one if there is none yet.
+     *
+     * @param outputDirectory the output directory
+     * @param siteRenderingContext the site rendering context the documents are rendered with
+     * @param rendererVersion the renderer version, may be {@code null}
+     * @return the render manifest
+     * @throws IOException if the manifest or the skin can't be read
+     */
+    static RenderManifest load(File outputDirectory, SiteRenderingContext siteRenderingContext, String rendererVersion)
+            throws IOException {
+        RenderManifest manifest = new RenderManifest(
+                new File(siteRenderingContext.getStateDirectory(outputDirectory), MANIFEST_NAME),
+                digest(siteRenderingContext),
+                digest(siteRenderingContext.getSkin()),
+                (rendererVersion == null) ? "unknown" : rendererVersion);
+
+        if (manifest.manifestFile.isFile()) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(manifest.manifestFile.toPath())) {
+                properties.load(in);
+            }
+            for (String key : properties.stringPropertyNames()) {
+                manifest.entries.put(key, properties.getProperty(key));
+            }
+        }
+
+        return manifest;
+    }
+
+    /**
+     * Compute the fingerprint of a document: source, site model, skin and renderer version digests.
+     *
+     * @param source the document source file
+     * @return the document fingerprint
+     * @throws IOException if the source can't be read
+     */
+    String getFingerprint(File source) throws IOException {
+        return digest(source) + ',' + siteDigest + ',' + skinDigest + ',' + rendererVersion;
+    }
+
+    /**
+     * Is the document rendered to an output path up-to-date?
+     *
+     * @param outputPath the output path, relative to the output directory
+     * @param fingerprint the current fingerprint of the document
+     * @return {@code true} if the document was last rendered with the same fingerprint
+     */
+    boolean isUpToDate(String outputPath, String fingerprint) {
+        return fingerprint.equals(entries.get(outputPath));
+    }
+
+    /**
+     * Record the fingerprint of a rendered document.
+     *
+     * @param outputPath the output path, relative to the output directory
+     * @param fingerprint the fingerprint of the rendered document
+     */
+    void update(String outputPath, String fingerprint) {
+        entries.put(outputPath, fingerprint);
+    }
+
+    /**
+     * Record a document produced into the output directory, rendered or up-to-date.
+     *
+     * @param outputPath the output path, relative to the output directory
+     */
+    void produced(String outputPath) {
+        entries.putIfAbsent(outputPath, NO_FINGERPRINT);
+    }
+
+    /**
+     * Delete the outputs of the documents recorded by a previous build but not produced by the current one, unless
+     * they are now copied resources.
+     *
+     * @param outputDirectory the output directory
+     * @param produced the output paths of the documents produced by the current build
+     * @return the output paths of the deleted files, relative to the output directory
+     */
+    List<String> pruneDocuments(File outputDirectory, Set<String> produced) {
+        List<String> deleted = new ArrayList<>();
+        for (String outputPath : new TreeSet<>(entries.keySet())) {
+            if (!outputPath.startsWith(RESOURCE_PREFIX)
+                    && !produced.contains(outputPath)
+                    && !entries.containsKey(RESOURCE_PREFIX + outputPath)) {
+                entries.remove(outputPath);
+                delete(outputDirectory, outputPath, deleted);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Record the resources copied into the output directory, and delete the resources recorded by a previous copy
+     * but not copied anymore, unless they are now document outputs.
+     *
+     * @param outputDirectory the output directory
+     * @param outputPaths the output paths of the copied resources, relative to the output directory
+     * @return the output paths of the deleted files, relative to the output directory
+     */
+    List<String> updateResources(File outputDirectory, Collection<String> outputPaths) {
+        Set<String> current = new HashSet<>(outputPaths);
+        List<String> deleted = new ArrayList<>();
+        for (String key : new TreeSet<>(entries.keySet())) {
+            if (key.startsWith(RESOURCE_PREFIX)) {
+                String outputPath = key.substring(RESOURCE_PREFIX.length());
+                if (!current.contains(outputPath)) {
+                    entries.remove(key);
+                    if (!entries.containsKey(outputPath)) {
+                        delete(outputDirectory, outputPath, deleted);
+                    }
+                }
+            }
+        }
+        for (String outputPath : current) {
+            entries.put(RESOURCE_PREFIX + outputPath, NO_FINGERPRINT);
+        }
+        return deleted;
+    }
+
+    /**
+     * Delete an output file and its precompressed sidecar, then their parent directories left empty up to the output
+     * directory.
+     */
+    private static void delete(File outputDirectory, String outputPath, List<String> deleted) {
+        File file = new File(outputDirectory, outputPath);
+        File sidecar = GzipPrecompressor.getSidecar(file);
+        if (sidecar.isFile() && sidecar.delete()) {
+            deleted.add(outputPath + GzipPrecompressor.EXTENSION);
+        }
+        if (!file.isFile() || !file.delete()) {
+            return;
+        }
+        deleted.add(outputPath);
+
+        // delete() only succeeds on empty directories
+        File root = outputDirectory.getAbsoluteFile();
+        File dir = file.getAbsoluteFile().getParentFile();
+        while (dir != null && !dir.equals(root) && dir.delete()) {
+            dir = dir.getParentFile();
+        }
+    }
+
+    /**
+     * Save the manifest into the state directory.
+     *
+     * @throws IOException if the manifest can't be written
+     */
+    void save() throws IOException {
+        manifestFile.getParentFile().mkdirs();
+
+        // sorted for stable content
+        Properties properties = new Properties();
+        properties.putAll(new TreeMap<>(entries));
+        try (OutputStream out = Files.newOutputStream(manifestFile.toPath())) {
+            properties.store(out, "Doxia Sitetools render manifest");
+        }
+    }
+
+    static String digest(File file) throws IOException {
+        if (file == null || !file.isFile()) {
+            return "-";
+        }
+
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int n;
+            while ((n = in.read(buffer)) >= 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static String digest(Artifact skin) throws IOException {
+        if (skin == null) {
+            return "-";
+        }
+        return digest(skin.getFile());
+    }
+
+    /**
+     * Digest everything from the site rendering context that ends up in every rendered document: the effective site
+     * model, the locale, the encodings, the template and the template properties. Template properties that are not
+     * simple values, like the Maven project, are digested through their public getters of simple values, like the
+     * project coordinates and name: values reachable only through other objects, like the project dependencies, are
+     * not digested.
+     */
+    private static String digest(SiteRenderingContext siteRenderingContext) throws IOException {
+        MessageDigest digest = newDigest();
+        try (Writer writer = new OutputStreamWriter(
+                new DigestOutputStream(NullOutputStream.INSTANCE, digest), StandardCharsets.UTF_8)) {
+            SiteModel siteModel = siteRenderingContext.getSiteModel();
+            if (siteModel != null) {
+                new SiteXpp3Writer().write(writer, siteModel);
+            }
+
+            writer.write('\n');
+            writer.write(String.valueOf(siteRenderingContext.getLocale()));
+            writer.write('\n');
+            writer.write(String.valueOf(siteRenderingContext.getInputEncoding()));
+            writer.write('\n');
+            writer.write(String.valueOf(siteRenderingContext.getOutputEncoding()));
+            writer.write('\n');
+            writer.write(String.valueOf(siteRenderingContext.getTemplateName()));
+            writer.write('\n');
+            SkinModel skinModel = siteRenderingContext.getSkinModel();
+            writer.write(String.valueOf((skinModel == null) ? null : skinModel.getEncoding()));
+
+            Map<String, ?> templateProperties = siteRenderingContext.getTemplateProperties();
+            if (templateProperties != null) {
+                for (Map.Entry<String, ?> entry : new TreeMap<>(templateProperties).entrySet()) {
+                    writer.write('\n');
+                    writer.write(entry.getKey());
+                    writer.write('=');
+                    writeValue(writer, entry.getValue());
+                }
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Write a template property value: a simple value as is, another object as its class and the values of its
+     * public getters of simple values.
+     */
+    private static void writeValue(Writer writer, Object value) throws IOException {
+        if (value == null || isSimple(value.getClass())) {
+            writer.write(String.valueOf(value));
+            return;
+        }
+
+        writer.write(value.getClass().getName());
+        Method[] methods = value.getClass().getMethods();
+        Arrays.sort(methods, Comparator.comparing(Method::getName));
+        for (Method method : methods) {
+            String name = method.getName();
+            if (method.getParameterCount() == 0
+                    && !Modifier.isStatic(method.getModifiers())
+                    && method.getDeclaringClass() != Object.class
+                    && (name.startsWith("get") || name.startsWith("is"))
+                    && isSimple(method.getReturnType())) {
+                try {
+                    Object property = method.invoke(value);
+                    writer.write(';');
+                    writer.write(name);
+                    writer.write('=');
+                    writer.write(String.valueOf(property));
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    // a getter that can't be called is not part of the digest
+                }
+            }
+        }
+    }
+
+    private static boolean isSimple(Class<?> type) {
+        return (type.isPrimitive() && type != void.class)
+                || CharSequence.class.isAssignableFrom(type)
+                || Number.class.isAssignableFrom(type)
+                || Boolean.class == type
+                || Character.class == type;
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(chars);
+    }
+
+    private static class NullOutputStream extends OutputStream {
+        static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(int b) {
+            // discard
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            // discard
+        }
+    }
+}
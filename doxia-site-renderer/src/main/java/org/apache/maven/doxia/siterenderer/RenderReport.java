@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timing of the documents rendered into an output directory, written as JSON into its state directory:
+ * phase durations, bytes in and out and parser id of every document, slowest first, with totals per parser.
+ * It covers every rendering into the output directory with a site rendering context, like documents then reports.
+ * Phases running in pipeline threads (Velocity, validation) overlap the parse phase: durations are wall-clock
+ * times measured in the thread running each phase.
+ *
+ * @since 2.1
+ */
+class RenderReport {
+    /**
+     * Name of the report file in the state directory.
+     */
+    static final String REPORT_NAME = "render-report.json";
+
+    /**
+     * Document rendering phases.
+     */
+    enum Phase {
+        VELOCITY,
+        VALIDATE,
+        PARSE,
+        MERGE,
+        WRITE;
+
+        String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final File reportFile;
+
+    private final Queue<DocumentTimes> documents = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param stateDirectory the state directory of the output directory
+     */
+    RenderReport(File stateDirectory) {
+        this.reportFile = new File(stateDirectory, REPORT_NAME);
+    }
+
+    /**
+     * Start recording the rendering of a document.
+     *
+     * @param docRenderer the document renderer
+     * @return the document times, to be {@link DocumentTimes#end() ended} once the document is rendered
+     */
+    DocumentTimes start(DocumentRenderer docRenderer) {
+        DocumentRenderingContext docRenderingContext = docRenderer.getRenderingContext();
+        String source = (docRenderingContext == null) ? null : docRenderingContext.getDoxiaSourcePath();
+        String parserId = (docRenderingContext == null) ? null : docRenderingContext.getParserId();
+        return new DocumentTimes(docRenderer.getOutputName(), source, parserId);
+    }
+
+    /**
+     * Record the duration of a phase, if the document rendering is timed.
+     *
+     * @param times the document times, {@code null} if not timed
+     * @param phase the phase
+     * @param startNanos the start of the phase, from {@link System#nanoTime()}
+     */
+    static void record(DocumentTimes times, Phase phase, long startNanos) {
+        if (times != null) {
+            times.record(phase, startNanos);
+        }
+    }
+
+    /**
+     * Timing of the rendering of a document, recorded from any thread.
+     */
+    class DocumentTimes {
+        private final String outputName;
+
+        private final String source;
+
+        private final String parserId;
+
+        private final long start = System.nanoTime();
+
+        private final AtomicLongArray phases = new AtomicLongArray(Phase.values().length);
+
+        private volatile long bytesIn = -1;
+
+        private volatile long bytesOut = -1;
+
+        private long total;
+
+        DocumentTimes(String outputName, String source, String parserId) {
+            this.outputName = outputName;
+            this.source = source;
+            this.parserId = parserId;
+        }
+
+        /**
+         * @param phase the phase
+         * @param startNanos the start of the phase, from {@link System#nanoTime()}
+         */
+        void record(Phase phase, long startNanos) {
+            phases.addAndGet(phase.ordinal(), System.nanoTime() - startNanos);
+        }
+
+        void setBytesIn(long bytesIn) {
+            this.bytesIn = bytesIn;
+        }
+
+        void setBytesOut(long bytesOut) {
+            this.bytesOut = bytesOut;
+        }
+
+        /**
+         * End the recording and add the document to the report.
+         */
+        void end() {
+            total = System.nanoTime() - start;
+            documents.add(this);
+        }
+    }
+
+    /**
+     * Write the report of the documents rendered so far into the state directory.
+     *
+     * @param discoverNanos the time spent locating the documents
+     * @throws IOException if the report can't be written
+     */
+    void save(long discoverNanos) throws IOException {
+        List<DocumentTimes> sorted = new ArrayList<>(documents);
+        sorted.sort(Comparator.comparingLong((DocumentTimes times) -> times.total)
+                .reversed()
+                .thenComparing(times -> times.outputName));
+
+        Map<String, List<DocumentTimes>> byParser = new TreeMap<>();
+        for (DocumentTimes times : sorted) {
+            if (times.parserId != null) {
+                byParser.computeIfAbsent(times.parserId, k -> new ArrayList<>()).add(times);
+            }
+        }
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"discoverMillis\": ").append(millis(discoverNanos));
+        json.append(",\n  \"documentCount\": ").append(sorted.size());
+        json.append(",\n  \"totals\": ");
+        appendTotals(json, sorted, "  ");
+
+        json.append(",\n  \"parsers\": {");
+        String separator = "\n";
+        for (Map.Entry<String, List<DocumentTimes>> entry : byParser.entrySet()) {
+            json.append(separator).append("    ");
+            appendString(json, entry.getKey());
+            json.append(": ");
+            appendTotals(json, entry.getValue(), "    ");
+            separator = ",\n";
+        }
+        json.append("\n  }");
+
+        json.append(",\n  \"documents\": [");
+        separator = "\n";
+        for (DocumentTimes times : sorted) {
+            json.append(separator).append("    {\"outputName\": ");
+            appendString(json, times.outputName);
+            json.append(", \"source\": ");
+            appendString(json, times.source);
+            json.append(", \"parserId\": ");
+            appendString(json, times.parserId);
+            json.append(", \"bytesIn\": ").append(times.bytesIn);
+            json.append(", \"bytesOut\": ").append(times.bytesOut);
+            json.append(", \"totalMillis\": ").append(millis(times.total));
+            for (Phase phase : Phase.values()) {
+                json.append(", \"")
+                        .append(phase.getName())
+                        .append("Millis\": ")
+                        .append(millis(times.phases.get(phase.ordinal())));
+            }
+            json.append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ]\n}\n");
+
+        reportFile.getParentFile().mkdirs();
+        try (Writer writer = Files.newBufferedWriter(reportFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+    }
+
+    private static void appendTotals(StringBuilder json, List<DocumentTimes> documents, String indent) {
+        long total = 0;
+        long bytesIn = 0;
+        long bytesOut = 0;
+        long[] phases = new long[Phase.values().length];
+        for (DocumentTimes times : documents) {
+            total += times.total;
+            bytesIn += Math.max(0, times.bytesIn);
+            bytesOut += Math.max(0, times.bytesOut);
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] += times.phases.get(i);
+            }
+        }
+
+        json.append("{\n").append(indent).append("  \"documentCount\": ").append(documents.size());
+        json.append(",\n").append(indent).append("  \"bytesIn\": ").append(bytesIn);
+        json.append(",\n").append(indent).append("  \"bytesOut\": ").append(bytesOut);
+        json.append(",\n").append(indent).append("  \"totalMillis\": ").append(millis(total));
+        for (Phase phase : Phase.values()) {
+            json.append(",\n")
+                    .append(indent)
+                    .append("  \"")
+                    .append(phase.getName())
+                    .append("Millis\": ")
+                    .append(millis(phases[phase.ordinal()]));
+        }
+        json.append('\n').append(indent).append('}');
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000d);
+    }
+
+    static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    json.append("\\\"");
+                    break;
+                case '\\':
+                    json.append("\\\\");
+                    break;
+                case '\n':
+                    json.append("\\n");
+                    break;
+                case '\r':
+                    json.append("\\r");
+                    break;
+                case '\t':
+                    json.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        json.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+            }
+        }
+        json.append('"');
+    }
+}
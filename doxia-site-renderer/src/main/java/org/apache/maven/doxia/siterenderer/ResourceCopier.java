@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copy of site resources into the output directory: skin resources and site <code>resources</code> directories.
+ * Each output path is copied from the last source added for it, and only if the output file does not already have
+ * the same size and content. Copies run in parallel on a bounded pool, writing precompressed sidecars on demand.
+ * In write-if-changed mode, the copied resources and their sidecars are recorded in the deployment manifest.
+ *
+ * @since 2.1
+ */
+class ResourceCopier {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResourceCopier.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Map<String, Resource> resources = new LinkedHashMap<>();
+
+    private final List<String> directories = new ArrayList<>();
+
+    private final AtomicInteger copied = new AtomicInteger();
+
+    private final AtomicInteger unchanged = new AtomicInteger();
+
+    private final AtomicLong copiedBytes = new AtomicLong();
+
+    private final GzipPrecompressor precompressor;
+
+    private final DeploymentManifest deployment;
+
+    ResourceCopier() {
+        this(null, null);
+    }
+
+    /**
+     * @param precompressor the writer of precompressed sidecars of copied resources, may be {@code null}
+     * @param deployment the deployment manifest recording added and changed files, may be {@code null}
+     */
+    ResourceCopier(GzipPrecompressor precompressor, DeploymentManifest deployment) {
+        this.precompressor = precompressor;
+        this.deployment = deployment;
+    }
+
+    /**
+     * Add a skin archive entry to copy.
+     *
+     * @param skinArchive the skin archive
+     * @param entry the entry, copied to the output path of same name
+     */
+    void add(SkinArchive skinArchive, ZipEntry entry) {
+        if (entry.isDirectory()) {
+            directories.add(entry.getName());
+        } else {
+            // re-put to keep the copy order of the overriding source
+            resources.remove(entry.getName());
+            resources.put(entry.getName(), new SkinResource(skinArchive, entry));
+        }
+    }
+
+    /**
+     * Add a file to copy, overriding any resource previously added for the same output path.
+     *
+     * @param path the output path, relative to the output directory, with <code>/</code> separators
+     * @param source the source file
+     */
+    void add(String path, File source) {
+        resources.remove(path);
+        resources.put(path, new FileResource(source));
+    }
+
+    /**
+     * Get the output paths of the resources to copy, with <code>/</code> separators.
+     */
+    List<String> getPaths() {
+        return new ArrayList<>(resources.keySet());
+    }
+
+    int getCopiedCount() {
+        return copied.get();
+    }
+
+    int getUnchangedCount() {
+        return unchanged.get();
+    }
+
+    long getCopiedBytes() {
+        return copiedBytes.get();
+    }
+
+    /**
+     * Copy the resources that changed into the output directory.
+     *
+     * @param outputDirectory the output directory
+     * @param parallelism the maximum number of concurrent copies
+     * @throws IOException if a resource can't be copied
+     */
+    void copyTo(File outputDirectory, int parallelism) throws IOException {
+        for (String directory : directories) {
+            new File(outputDirectory, directory).mkdirs();
+        }
+
+        if (parallelism <= 1 || resources.size() <= 1) {
+            for (Map.Entry<String, Resource> entry : resources.entrySet()) {
+                copy(entry.getKey(), entry.getValue(), outputDirectory);
+            }
+        } else {
+            copyParallel(outputDirectory, parallelism);
+        }
+
+        LOGGER.debug("Copied {} resources, {} unchanged", copied, unchanged);
+    }
+
+    private void copyParallel(File outputDirectory, int parallelism) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<ForkJoinTask<IOException>> tasks = new ArrayList<>(resources.size());
+            for (Map.Entry<String, Resource> entry : resources.entrySet()) {
+                String path = entry.getKey();
+                Resource resource = entry.getValue();
+                tasks.add(pool.submit(() -> {
+                    try {
+                        copy(path, resource, outputDirectory);
+                        return null;
+                    } catch (IOException e) {
+                        return e;
+                    }
+                }));
+            }
+
+            for (ForkJoinTask<IOException> task : tasks) {
+                IOException failure = task.join();
+                if (failure != null) {
+                    for (ForkJoinTask<IOException> t : tasks) {
+                        t.cancel(false);
+                    }
+                    throw failure;
+                }
+            }
+        } finally {
+            pool.shutdown();
+            pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void copy(String path, Resource resource, File outputDirectory) throws IOException {
+        Path destination = new File(outputDirectory, path).toPath();
+        boolean compress = precompressor != null
+                && precompressor.accepts(destination.getFileName().toString());
+        boolean sidecarExists =
+                compress && GzipPrecompressor.getSidecar(destination.toFile()).isFile();
+        boolean exists = Files.isRegularFile(destination);
+        if (exists && resource.isSameAs(destination)) {
+            if (compress) {
+                deployedSidecar(path, destination, sidecarExists, precompressor.compressIfMissing(destination));
+            }
+            unchanged.incrementAndGet();
+            if (deployment != null) {
+                deployment.unchanged();
+            }
+            return;
+        }
+
+        Files.createDirectories(destination.getParent());
+        if (compress) {
+            // the sidecar is written while copying
+            try (InputStream in = resource.openStream()) {
+                copiedBytes.addAndGet(precompressor.copy(in, destination));
+            }
+        } else {
+            copiedBytes.addAndGet(resource.copyTo(destination));
+        }
+        copied.incrementAndGet();
+
+        if (deployment != null) {
+            if (exists) {
+                deployment.changed(path);
+            } else {
+                deployment.added(path);
+            }
+        }
+        if (compress) {
+            deployedSidecar(
+                    path,
+                    destination,
+                    sidecarExists,
+                    GzipPrecompressor.getSidecar(destination.toFile()).isFile());
+        }
+    }
+
+    /**
+     * Record the update of the sidecar of a resource in the deployment manifest.
+     */
+    private void deployedSidecar(String path, Path destination, boolean existed, boolean written) {
+        if (deployment == null) {
+            return;
+        }
+
+        String sidecarPath = path + GzipPrecompressor.EXTENSION;
+        if (written) {
+            if (existed) {
+                deployment.changed(sidecarPath);
+            } else {
+                deployment.added(sidecarPath);
+            }
+        } else if (existed
+                && !GzipPrecompressor.getSidecar(destination.toFile()).isFile()) {
+            deployment.deleted(sidecarPath);
+        }
+    }
+
+    private interface Resource {
+        boolean isSameAs(Path destination) throws IOException;
+
+        InputStream openStream() throws IOException;
+
+        long copyTo(Path destination) throws IOException;
+    }
+
+    private static class SkinResource implements Resource {
+        private final SkinArchive skinArchive;
+
+        private final ZipEntry entry;
+
+        SkinResource(SkinArchive skinArchive, ZipEntry entry) {
+            this.skinArchive = skinArchive;
+            this.entry = entry;
+        }
+
+        /**
+         * Compare size and CRC-32 recorded in the archive to the destination file ones.
+         */
+        @Override
+        public boolean isSameAs(Path destination) throws IOException {
+            if (entry.getSize() < 0 || entry.getCrc() < 0 || entry.getSize() != Files.size(destination)) {
+                return false;
+            }
+
+            CRC32 crc = new CRC32();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = Files.newInputStream(destination)) {
+                int n;
+                while ((n = in.read(buffer)) >= 0) {
+                    crc.update(buffer, 0, n);
+                }
+            }
+            return crc.getValue() == entry.getCrc();
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return skinArchive.getInputStream(entry);
+        }
+
+        @Override
+        public long copyTo(Path destination) throws IOException {
+            try (InputStream in = skinArchive.getInputStream(entry)) {
+                return Files.copy(in, destination, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private static class FileResource implements Resource {
+        private final File source;
+
+        FileResource(File source) {
+            this.source = source;
+        }
+
+        /**
+         * Compare size then content, stopping at the first difference.
+         */
+        @Override
+        public boolean isSameAs(Path destination) throws IOException {
+            Path path = source.toPath();
+            if (Files.size(path) != Files.size(destination)) {
+                return false;
+            }
+
+            byte[] buffer1 = new byte[BUFFER_SIZE];
+            byte[] buffer2 = new byte[BUFFER_SIZE];
+            try (InputStream in1 = Files.newInputStream(path);
+                    InputStream in2 = Files.newInputStream(destination)) {
+                while (true) {
+                    int n1 = readFully(in1, buffer1);
+                    int n2 = readFully(in2, buffer2);
+                    if (n1 != n2) {
+                        return false;
+                    }
+                    for (int i = 0; i < n1; i++) {
+                        if (buffer1[i] != buffer2[i]) {
+                            return false;
+                        }
+                    }
+                    if (n1 < BUFFER_SIZE) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        private static int readFully(InputStream in, byte[] buffer) throws IOException {
+            int total = 0;
+            int n;
+            while (total < buffer.length && (n = in.read(buffer, total, buffer.length - total)) >= 0) {
+                total += n;
+            }
+            return total;
+        }
+
+        @Override
+        public InputStream openStream() throws IOException {
+            return Files.newInputStream(source.toPath());
+        }
+
+        @Override
+        public long copyTo(Path destination) throws IOException {
+            Files.copy(source.toPath(), destination, StandardCopyOption.REPLACE_EXISTING);
+            return Files.size(destination);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -87,6 +88,22 @@ public interface SiteRenderer {
      */
     void copyResources(SiteRenderingContext siteRenderingContext, File outputDirectory) throws IOException;
 
+    /**
+     * Delete the stale outputs of an output directory, if stale output pruning is on: the outputs of documents and
+     * the resources recorded by a previous build but neither rendered nor copied with the site rendering context.
+     * To be called once, after every {@link #render(Collection, SiteRenderingContext, File)} and
+     * {@link #copyResources(SiteRenderingContext, File)} call into the output directory.
+     *
+     * @param siteRenderingContext the SiteRenderingContext the output directory was rendered with
+     * @param outputDirectory output directory as file
+     * @throws IOException if it bombs.
+     * @see SiteRenderingContext#setPruneStaleOutput(boolean)
+     * @since 2.1
+     */
+    default void pruneStaleOutput(SiteRenderingContext siteRenderingContext, File outputDirectory) throws IOException {
+        // nothing recorded, nothing to prune
+    }
+
     /**
      * Locate Doxia document source files in the site source context.
      *
@@ -111,6 +128,40 @@ public interface SiteRenderer {
         return locateDocumentFiles(siteRenderingContext);
     }
 
+    /**
+     * Locate Doxia document source files of several locales in a single pass: a site directory shared by several
+     * locales is scanned once. The documents found are added to the documents of each locale rendering.
+     *
+     * @param localeRenderings the renderings of the locales
+     * @throws IOException if it bombs.
+     * @throws RendererException if it bombs.
+     * @since 2.1
+     */
+    default void locateDocumentFiles(List<LocaleRendering> localeRenderings) throws IOException, RendererException {
+        for (LocaleRendering localeRendering : localeRenderings) {
+            localeRendering.getDocuments().putAll(locateDocumentFiles(localeRendering.getSiteRenderingContext()));
+        }
+    }
+
+    /**
+     * Render the documents of several locales in a single pass. A Doxia source rendered in several locales, whose
+     * content does not depend on the locale (i.e. not processed by Velocity), is parsed once: only the merge into
+     * the site template is done for each locale.
+     *
+     * @param localeRenderings the renderings of the locales
+     * @throws RendererException if it bombs.
+     * @throws IOException if it bombs.
+     * @since 2.1
+     */
+    default void render(List<LocaleRendering> localeRenderings) throws RendererException, IOException {
+        for (LocaleRendering localeRendering : localeRenderings) {
+            render(
+                    localeRendering.getDocuments().values(),
+                    localeRendering.getSiteRenderingContext(),
+                    localeRendering.getOutputDirectory());
+        }
+    }
+
     /**
      * Render a document written in a Doxia markup language. This method is an internal method, used by
      * {@link DoxiaDocumentRenderer}.
@@ -19,12 +19,17 @@
 package org.apache.maven.doxia.siterenderer;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.maven.artifact.Artifact;
 import org.apache.maven.doxia.parser.Parser;
@@ -39,6 +44,21 @@ import org.codehaus.plexus.util.WriterFactory;
  * @author <a href="mailto:brett@apache.org">Brett Porter</a>
  */
 public class SiteRenderingContext {
+    /**
+     * Default maximum size of the render cache: 256 MiB.
+     *
+     * @since 2.1
+     */
+    public static final long DEFAULT_RENDER_CACHE_SIZE = 256L * 1024 * 1024;
+
+    /**
+     * Default minimum size of precompressed files: 1 KiB.
+     *
+     * @since 2.1
+     */
+    public static final int DEFAULT_PRECOMPRESS_THRESHOLD = 1024;
+
+    private static final String DEFAULT_STATE_DIRECTORY_NAME = "doxia-state";
 
     public static class SiteDirectory {
         private File path;
@@ -111,6 +131,38 @@ public class SiteRenderingContext {
 
     private ParserConfigurator parserConfigurator;
 
+    private int parallelism = 1;
+
+    private boolean renderManifest;
+
+    private File stateDirectory;
+
+    private boolean renderReport;
+
+    private boolean pruneStaleOutput;
+
+    private boolean writeIfChanged;
+
+    private File renderCacheDirectory;
+
+    private long renderCacheSize = DEFAULT_RENDER_CACHE_SIZE;
+
+    private boolean precompress;
+
+    private int precompressThreshold = DEFAULT_PRECOMPRESS_THRESHOLD;
+
+    private final AtomicLong discoverNanos = new AtomicLong();
+
+    private final Map<File, DeploymentManifest> deploymentManifests = new ConcurrentHashMap<>();
+
+    private final Map<File, RenderReport> renderReports = new ConcurrentHashMap<>();
+
+    private final Map<File, Set<String>> producedDocuments = new ConcurrentHashMap<>();
+
+    private final Map<File, Set<String>> copiedResources = new ConcurrentHashMap<>();
+
+    private volatile Map<String, Object> velocityValues;
+
     /**
      * If input documents should be validated before parsing.
      * By default no validation is performed.
@@ -175,6 +227,7 @@ public class SiteRenderingContext {
      */
     public void setTemplateProperties(Map<String, ?> templateProperties) {
         this.templateProperties = Collections.unmodifiableMap(templateProperties);
+        this.velocityValues = null;
     }
 
     /**
@@ -193,6 +246,7 @@ public class SiteRenderingContext {
      */
     public void setLocale(Locale locale) {
         this.locale = locale;
+        this.velocityValues = null;
     }
 
     /**
@@ -212,6 +266,7 @@ public class SiteRenderingContext {
      */
     public void addSiteLocales(List<Locale> locales) {
         siteLocales.addAll(locales);
+        this.velocityValues = null;
     }
 
     /**
@@ -230,6 +285,7 @@ public class SiteRenderingContext {
      */
     public void setSiteModel(SiteModel siteModel) {
         this.siteModel = siteModel;
+        this.velocityValues = null;
     }
 
     /**
@@ -393,6 +449,7 @@ public class SiteRenderingContext {
      */
     public void setPublishDate(Date publishDate) {
         this.publishDate = publishDate;
+        this.velocityValues = null;
     }
 
     /**
@@ -454,4 +511,394 @@ public class SiteRenderingContext {
     public void setParserConfigurator(ParserConfigurator parserConfigurator) {
         this.parserConfigurator = parserConfigurator;
     }
+
+    /**
+     * Number of threads used to render documents in {@link SiteRenderer#render}.
+     * By default documents are rendered one after the other.
+     *
+     * @return the rendering parallelism, {@code 1} for serial rendering
+     * @since 2.1
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of threads used to render documents. Any value lower than {@code 2} switches to serial
+     * rendering.
+     *
+     * @param parallelism the rendering parallelism
+     * @since 2.1
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * If a render manifest is kept in the state directory of the output directory to detect up-to-date documents.
+     * By default documents are considered up-to-date by comparing source and output modification times.
+     *
+     * @return {@code true} if up-to-date detection is based on the render manifest
+     * @since 2.1
+     */
+    public boolean isRenderManifest() {
+        return renderManifest;
+    }
+
+    /**
+     * Switch on/off the render manifest: when on, a document is rendered again only if the digest of its source,
+     * of the site model, of the skin or the renderer version changed since the previous rendering into the same
+     * output directory.
+     *
+     * @param renderManifest {@code true} to use a render manifest
+     * @since 2.1
+     */
+    public void setRenderManifest(boolean renderManifest) {
+        this.renderManifest = renderManifest;
+    }
+
+    /**
+     * Directory of the renderer state files, like the render manifest.
+     *
+     * @return the state directory, or {@code null} to keep state files in the default state directory
+     * @since 2.1
+     */
+    public File getStateDirectory() {
+        return stateDirectory;
+    }
+
+    /**
+     * Set the directory of the renderer state files, like the render manifest, for example in the build directory.
+     * State files are never written into an output directory, for them to not be deployed with the site. By default,
+     * they are kept in a <code>doxia-state</code> directory in the build directory, i.e. the directory of the
+     * {@link #getRootDirectory() root directory} containing the output directory, like <code>target</code> for
+     * <code>target/site</code> and <code>target/site/fr</code>. Without root directory, it is next to the output
+     * directory, or next to its parent for the output directory of a site locale. Every output directory gets its
+     * own subdirectory of the state directory.
+     *
+     * @param stateDirectory the state directory, {@code null} to keep state files in the default state directory
+     * @since 2.1
+     */
+    public void setStateDirectory(File stateDirectory) {
+        this.stateDirectory = stateDirectory;
+    }
+
+    /**
+     * Get the deployment manifest of an output directory, shared by the renderings into it with this context.
+     *
+     * @param outputDirectory the output directory
+     * @return the deployment manifest of the output directory
+     */
+    DeploymentManifest getDeploymentManifest(File outputDirectory) {
+        return deploymentManifests.computeIfAbsent(
+                outputDirectory.getAbsoluteFile(), output -> new DeploymentManifest(getStateDirectory(output)));
+    }
+
+    /**
+     * Get the rendering report of an output directory, shared by the renderings into it with this context.
+     *
+     * @param outputDirectory the output directory
+     * @return the rendering report of the output directory
+     */
+    RenderReport getRenderReport(File outputDirectory) {
+        return renderReports.computeIfAbsent(
+                outputDirectory.getAbsoluteFile(), output -> new RenderReport(getStateDirectory(output)));
+    }
+
+    /**
+     * Get the output paths of the documents produced into an output directory by the renderings with this context,
+     * for stale output pruning.
+     *
+     * @param outputDirectory the output directory
+     * @return the output paths of the produced documents, relative to the output directory
+     */
+    Set<String> getProducedDocuments(File outputDirectory) {
+        return producedDocuments.computeIfAbsent(
+                outputDirectory.getAbsoluteFile(), output -> ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Has a rendering with this context been done into an output directory?
+     *
+     * @param outputDirectory the output directory
+     * @return {@code true} if documents were rendered into the output directory, even none
+     */
+    boolean isRendered(File outputDirectory) {
+        return producedDocuments.containsKey(outputDirectory.getAbsoluteFile());
+    }
+
+    /**
+     * Record resources copied into an output directory with this context, for stale output pruning.
+     *
+     * @param outputDirectory the output directory
+     * @param outputPaths the output paths of the copied resources, relative to the output directory
+     */
+    void addCopiedResources(File outputDirectory, Collection<String> outputPaths) {
+        copiedResources
+                .computeIfAbsent(outputDirectory.getAbsoluteFile(), output -> ConcurrentHashMap.newKeySet())
+                .addAll(outputPaths);
+    }
+
+    /**
+     * Get the resources copied into an output directory with this context.
+     *
+     * @param outputDirectory the output directory
+     * @return the output paths of the copied resources, or {@code null} if no resources were copied with this context
+     */
+    Set<String> getCopiedResources(File outputDirectory) {
+        return copiedResources.get(outputDirectory.getAbsoluteFile());
+    }
+
+    /**
+     * Get the directory of the state files of an output directory.
+     *
+     * @param outputDirectory the output directory
+     * @return the state directory of the output directory
+     */
+    File getStateDirectory(File outputDirectory) {
+        File output = outputDirectory.getAbsoluteFile();
+        File directory = (stateDirectory == null)
+                ? new File(getDefaultStateParent(output), DEFAULT_STATE_DIRECTORY_NAME)
+                : stateDirectory;
+
+        // output directories with the same name, like locale ones, are told apart by a digest of their path
+        String digest = RenderManifest.toHex(
+                RenderManifest.newDigest().digest(output.getPath().getBytes(StandardCharsets.UTF_8)));
+        return new File(directory, output.getName() + '-' + digest.substring(0, 16));
+    }
+
+    /**
+     * Get the parent of the default state directory of an output directory, never inside a rendered output directory:
+     * the build directory, or the parent of the output directory, of the site output directory for a locale one.
+     */
+    private File getDefaultStateParent(File output) {
+        if (rootDirectory != null) {
+            File root = rootDirectory.getAbsoluteFile();
+            File buildDirectory = output;
+            File parent = output.getParentFile();
+            while (parent != null && !parent.equals(root)) {
+                buildDirectory = parent;
+                parent = parent.getParentFile();
+            }
+            if (parent != null) {
+                // an output directory right in the root directory is its own build directory
+                return buildDirectory.equals(output) ? root : buildDirectory;
+            }
+        }
+
+        File parent = output.getParentFile();
+        if (isLocaleDirectory(output) && parent.getParentFile() != null) {
+            return parent.getParentFile();
+        }
+        return parent;
+    }
+
+    private boolean isLocaleDirectory(File output) {
+        List<Locale> locales = new ArrayList<>(siteLocales);
+        locales.add(locale);
+        for (Locale siteLocale : locales) {
+            String name = siteLocale.toString();
+            if (!name.isEmpty() && name.equals(output.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If a rendering report is written into the state directory of the output directory.
+     *
+     * @return {@code true} if rendering is timed and reported
+     * @since 2.1
+     */
+    public boolean isRenderReport() {
+        return renderReport;
+    }
+
+    /**
+     * Switch on/off the rendering report: when on, the time spent locating documents and, for every rendered
+     * document, the time spent in each rendering phase (Velocity, validation, parsing, template merge and file
+     * writing) with bytes in/out are written as JSON into the state directory of the output directory, slowest
+     * documents first and with totals per parser. The report covers every rendering into the output directory with
+     * this context, like documents then reports.
+     *
+     * @param renderReport {@code true} to write a rendering report
+     * @since 2.1
+     */
+    public void setRenderReport(boolean renderReport) {
+        this.renderReport = renderReport;
+    }
+
+    /**
+     * If the outputs that are no longer produced are deleted from the output directory.
+     *
+     * @return {@code true} if stale outputs are pruned
+     * @since 2.1
+     */
+    public boolean isPruneStaleOutput() {
+        return pruneStaleOutput;
+    }
+
+    /**
+     * Switch on/off stale output pruning, together with the render manifest that records the files produced into
+     * the output directory: when both are on, the renderings and resource copies into an output directory with this
+     * context are recorded, and {@link SiteRenderer#pruneStaleOutput(SiteRenderingContext, File)}, called once they
+     * are all done, deletes the outputs of documents that are no longer rendered, like deleted or renamed sources,
+     * and the resources that are no longer copied. Files that were not produced by the renderer, like the content
+     * of external reports, are never deleted.
+     *
+     * @param pruneStaleOutput {@code true} to delete stale outputs
+     * @see #setRenderManifest(boolean)
+     * @since 2.1
+     */
+    public void setPruneStaleOutput(boolean pruneStaleOutput) {
+        this.pruneStaleOutput = pruneStaleOutput;
+    }
+
+    /**
+     * If rendered documents are written only when their content changed.
+     *
+     * @return {@code true} if unchanged output files are left untouched
+     * @since 2.1
+     */
+    public boolean isWriteIfChanged() {
+        return writeIfChanged;
+    }
+
+    /**
+     * Switch on/off the write-if-changed mode: when on, a document is rendered into memory and written only if the
+     * output file does not exist yet or has a different content, keeping the modification time of unchanged files
+     * for incremental deployments. Up-to-date documents are detected with the render manifest, as modification
+     * times of unchanged files are kept.
+     * A deployment manifest listing the output files added, changed or deleted is written as JSON into the state
+     * directory of the output directory: it covers every rendering and resource copy into the output directory with
+     * this context, like documents then reports.
+     *
+     * @see #setRenderManifest(boolean)
+     * @param writeIfChanged {@code true} to leave unchanged output files untouched
+     * @since 2.1
+     */
+    public void setWriteIfChanged(boolean writeIfChanged) {
+        this.writeIfChanged = writeIfChanged;
+    }
+
+    /**
+     * Directory of the persistent render cache, shared between builds.
+     *
+     * @return the render cache directory, or {@code null} if parsed documents are not cached
+     * @since 2.1
+     */
+    public File getRenderCacheDirectory() {
+        return renderCacheDirectory;
+    }
+
+    /**
+     * Set the directory of the persistent render cache, for example in the local repository: the content parsed
+     * from Doxia sources not processed by Velocity is kept there, keyed by source digest, parser and Doxia core
+     * implementations, parser configuration, validation, locale and renderer version. A document found in the cache
+     * is merged into the site template without being parsed again, even if the output directory has been cleaned.
+     * <p>
+     * Files read by macros while parsing, like snippets, can't be part of the key: documents using macros other than
+     * {@code echo} and {@code toc} are always parsed. As the cache is outside the build directory, cleaning the build
+     * doesn't clear it: delete the render cache directory to force parsing again.
+     *
+     * @param renderCacheDirectory the render cache directory, {@code null} to not cache parsed documents
+     * @since 2.1
+     */
+    public void setRenderCacheDirectory(File renderCacheDirectory) {
+        this.renderCacheDirectory = renderCacheDirectory;
+    }
+
+    /**
+     * Maximum size of the render cache, in bytes.
+     *
+     * @return the render cache size, {@link #DEFAULT_RENDER_CACHE_SIZE} by default
+     * @since 2.1
+     */
+    public long getRenderCacheSize() {
+        return renderCacheSize;
+    }
+
+    /**
+     * Set the maximum size of the render cache: once documents are rendered, the least recently used entries are
+     * evicted until the cache fits in this size.
+     *
+     * @param renderCacheSize the render cache size, in bytes
+     * @since 2.1
+     */
+    public void setRenderCacheSize(long renderCacheSize) {
+        this.renderCacheSize = Math.max(0, renderCacheSize);
+    }
+
+    /**
+     * If precompressed <code>.gz</code> sidecars are written next to output files.
+     *
+     * @return {@code true} if output files of compressible types are precompressed
+     * @since 2.1
+     */
+    public boolean isPrecompress() {
+        return precompress;
+    }
+
+    /**
+     * Switch on/off precompression: when on, a gzip compressed <code>.gz</code> sidecar is written next to every
+     * rendered document and copied resource of a compressible type, like HTML, CSS, JavaScript or SVG, at least as
+     * large as the precompress threshold, for web servers serving precompressed files directly. The sidecars of
+     * output files left unchanged are not written again.
+     *
+     * @param precompress {@code true} to write precompressed sidecars
+     * @see #setPrecompressThreshold(int)
+     * @since 2.1
+     */
+    public void setPrecompress(boolean precompress) {
+        this.precompress = precompress;
+    }
+
+    /**
+     * Minimum size of precompressed files, in bytes.
+     *
+     * @return the precompress threshold, {@link #DEFAULT_PRECOMPRESS_THRESHOLD} by default
+     * @since 2.1
+     */
+    public int getPrecompressThreshold() {
+        return precompressThreshold;
+    }
+
+    /**
+     * Set the minimum size of precompressed files: smaller files gain too little from compression.
+     *
+     * @param precompressThreshold the precompress threshold, in bytes
+     * @since 2.1
+     */
+    public void setPrecompressThreshold(int precompressThreshold) {
+        this.precompressThreshold = Math.max(0, precompressThreshold);
+    }
+
+    /**
+     * @return the time spent locating documents with this context, in nanoseconds
+     */
+    long getDiscoverTime() {
+        return discoverNanos.get();
+    }
+
+    /**
+     * @param nanos time spent locating documents with this context, in nanoseconds
+     */
+    void addDiscoverTime(long nanos) {
+        discoverNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Site-level Velocity values shared by every document rendered with this context, computed by the renderer
+     * and reset whenever a setter changes one of them.
+     *
+     * @return the site-level Velocity values, or {@code null} if not computed yet
+     */
+    Map<String, Object> getVelocityValues() {
+        return velocityValues;
+    }
+
+    void setVelocityValues(Map<String, Object> velocityValues) {
+        this.velocityValues = velocityValues;
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+/**
+ * Java Flight Recorder events of the site rendering. This Java 8 implementation records nothing: on Java 11 and
+ * later, the multi-release jar replaces it with one emitting <code>org.apache.maven.doxia.*</code> events.
+ * <p>
+ * Each <code>begin</code> method returns the event to pass to the matching <code>end</code> method, or
+ * <code>null</code> when the event is not recorded: event values are only computed when the event is committed.
+ *
+ * @since 2.1
+ */
+final class SiteRenderingEvents {
+    private SiteRenderingEvents() {
+        // no instances
+    }
+
+    static Object beginRenderDocument() {
+        return null;
+    }
+
+    static void endRenderDocument(
+            Object event, DocumentRenderingContext docRenderingContext, SiteRenderingContext siteContext) {
+        // not recorded
+    }
+
+    static Object beginMergeDocument() {
+        return null;
+    }
+
+    static void endMergeDocument(Object event, DocumentContent content, SiteRenderingContext siteContext) {
+        // not recorded
+    }
+
+    static Object beginCopyResources() {
+        return null;
+    }
+
+    static void endCopyResources(
+            Object event, SiteRenderingContext siteContext, int copied, int unchanged, long copiedBytes) {
+        // not recorded
+    }
+
+    static Object beginLocateDocuments() {
+        return null;
+    }
+
+    static void endLocateDocuments(Object event, SiteRenderingContext siteContext, int documents) {
+        // not recorded
+    }
+}
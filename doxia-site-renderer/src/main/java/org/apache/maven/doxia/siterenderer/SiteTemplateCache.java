@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.velocity.Template;
+
+/**
+ * Cache of parsed site templates, keyed by skin artifact coordinates, template name and encoding.
+ * Velocity templates are thread-safe once parsed, so a skin template is parsed once and then merged for
+ * every document, every locale and every module using the same skin.
+ *
+ * @since 2.1
+ */
+public class SiteTemplateCache {
+    private final Map<String, Template> templates = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Get a parsed template from the cache, or parse it with the loader and cache it.
+     *
+     * @param skin the skin artifact containing the template
+     * @param templateName the template name
+     * @param encoding the template encoding, may be {@code null}
+     * @param loader the loader parsing the template when not yet cached
+     * @return the parsed template
+     */
+    Template getTemplate(Artifact skin, String templateName, String encoding, Supplier<Template> loader) {
+        String key = getKey(skin, templateName, encoding);
+
+        Template template = templates.get(key);
+        if (template != null) {
+            hits.incrementAndGet();
+            return template;
+        }
+
+        return templates.computeIfAbsent(key, k -> {
+            misses.incrementAndGet();
+            return loader.get();
+        });
+    }
+
+    private static String getKey(Artifact skin, String templateName, String encoding) {
+        StringBuilder key = new StringBuilder(skin.getId());
+        if (skin.isSnapshot() && skin.getFile() != null) {
+            // a snapshot skin may be rebuilt while the renderer is alive
+            key.append('@').append(skin.getFile().lastModified());
+        }
+        return key.append('|').append(templateName).append('|').append(encoding).toString();
+    }
+
+    /**
+     * Get the number of template lookups served from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of template lookups that required parsing the template.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Get the number of parsed templates in the cache.
+     *
+     * @return the cache size
+     */
+    public int size() {
+        return templates.size();
+    }
+
+    /**
+     * Remove every parsed template from the cache.
+     */
+    public void clear() {
+        templates.clear();
+    }
+}
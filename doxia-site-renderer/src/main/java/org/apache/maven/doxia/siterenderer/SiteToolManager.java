@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.apache.velocity.tools.ToolContext;
+import org.apache.velocity.tools.ToolManager;
+
+/**
+ * Tool manager creating two-level contexts: a small per-document map on top of an immutable site-level map
+ * shared by every document rendered with the same site rendering context.
+ *
+ * @since 2.1
+ */
+class SiteToolManager extends ToolManager {
+    SiteToolManager() {
+        super(false, false);
+    }
+
+    /**
+     * Create a context for a document.
+     *
+     * @param siteValues the immutable site-level values, looked up when not found in the document values
+     * @return a tools managed context
+     */
+    ToolContext createSiteContext(Map<String, Object> siteValues) {
+        ToolContext context = new SiteToolContext(siteValues);
+        prepareContext(context);
+        return context;
+    }
+
+    /**
+     * Document value computed on its first lookup, for values costly to build that templates may not use.
+     */
+    static final class LazyValue {
+        private final Supplier<?> supplier;
+
+        LazyValue(Supplier<?> supplier) {
+            this.supplier = supplier;
+        }
+
+        Object get() {
+            return supplier.get();
+        }
+
+        /**
+         * Render the value in contexts that don't compute lazy values, like the ones of overridden
+         * {@link DefaultSiteRenderer#createDocumentVelocityContext(DocumentRenderingContext, SiteRenderingContext)}.
+         */
+        @Override
+        public String toString() {
+            return String.valueOf(get());
+        }
+    }
+
+    /**
+     * Tool context with document values put locally and site values shared with other documents.
+     * Document values take precedence over site values, and both take precedence over tools.
+     * {@link LazyValue Lazy} document values are computed on their first lookup.
+     */
+    private static class SiteToolContext extends ToolContext {
+        private final Map<String, Object> siteValues;
+
+        private final Map<String, Object> documentValues = new HashMap<>();
+
+        SiteToolContext(Map<String, Object> siteValues) {
+            this.siteValues = siteValues;
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return documentValues.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map context) {
+            documentValues.putAll(context);
+        }
+
+        @Override
+        public Object remove(String key) {
+            // site values are shared: they cannot be removed
+            return documentValues.remove(key);
+        }
+
+        @Override
+        protected Object internalGet(String key) {
+            if (!documentValues.containsKey(key)) {
+                return siteValues.get(key);
+            }
+
+            Object value = documentValues.get(key);
+            if (value instanceof LazyValue) {
+                value = ((LazyValue) value).get();
+                documentValues.put(key, value);
+            }
+            return value;
+        }
+
+        @Override
+        public Set<String> keySet() {
+            Set<String> keys = super.keySet();
+            keys.addAll(siteValues.keySet());
+            keys.addAll(documentValues.keySet());
+            return keys;
+        }
+    }
+}
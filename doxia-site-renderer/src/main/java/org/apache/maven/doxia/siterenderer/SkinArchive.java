@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import org.apache.maven.doxia.site.skin.SkinModel;
+import org.apache.maven.doxia.site.skin.io.xpp3.SkinXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * A skin jar opened once: its entries are indexed when opened, its skin descriptor is parsed once and its template
+ * class loader is shared by every site rendering context using the skin, until the archive is closed.
+ *
+ * @since 2.1
+ */
+class SkinArchive implements Closeable {
+    private final File file;
+
+    private final long lastModified;
+
+    private final long length;
+
+    private final ZipFile zipFile;
+
+    /**
+     * Skin resources, ie entries outside <code>META-INF/</code>, in archive order.
+     */
+    private final List<ZipEntry> resources;
+
+    private SkinModel skinModel;
+
+    private boolean skinModelRead;
+
+    private URLClassLoader classLoader;
+
+    SkinArchive(File file) throws IOException {
+        this.file = file;
+        this.lastModified = file.lastModified();
+        this.length = file.length();
+
+        try {
+            // TODO: plexus-archiver, if it could do the excludes
+            this.zipFile = new ZipFile(file);
+        } catch (ZipException ex) {
+            throw new IOException("Error opening ZipFile: " + file.getAbsolutePath(), ex);
+        }
+
+        List<ZipEntry> entries = new ArrayList<>();
+        for (Enumeration<? extends ZipEntry> e = zipFile.entries(); e.hasMoreElements(); ) {
+            ZipEntry entry = e.nextElement();
+            if (!entry.getName().startsWith("META-INF/")) {
+                entries.add(entry);
+            }
+        }
+        this.resources = Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Is the archive still the same as the skin file, or was the file rebuilt since it was opened?
+     */
+    boolean isCurrent() {
+        return file.lastModified() == lastModified && file.length() == length;
+    }
+
+    boolean hasEntry(String name) {
+        return zipFile.getEntry(name) != null;
+    }
+
+    List<ZipEntry> getResources() {
+        return resources;
+    }
+
+    InputStream getInputStream(ZipEntry entry) throws IOException {
+        return zipFile.getInputStream(entry);
+    }
+
+    /**
+     * Get the skin descriptor, parsed on first call.
+     *
+     * @return the skin model, or {@code null} if the skin has no descriptor
+     */
+    synchronized SkinModel getSkinModel() throws IOException, XmlPullParserException {
+        if (!skinModelRead) {
+            ZipEntry skinDescriptorEntry = zipFile.getEntry(SkinModel.SKIN_DESCRIPTOR_LOCATION);
+            if (skinDescriptorEntry != null) {
+                try (InputStream in = zipFile.getInputStream(skinDescriptorEntry)) {
+                    skinModel = new SkinXpp3Reader().read(in);
+                }
+            }
+            skinModelRead = true;
+        }
+        return skinModel;
+    }
+
+    /**
+     * Get the class loader used to load the skin template, created on first call.
+     */
+    synchronized ClassLoader getClassLoader() throws IOException {
+        if (classLoader == null) {
+            classLoader = new URLClassLoader(new URL[] {file.toURI().toURL()});
+        }
+        return classLoader;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            zipFile.close();
+        } finally {
+            if (classLoader != null) {
+                classLoader.close();
+            }
+        }
+    }
+}
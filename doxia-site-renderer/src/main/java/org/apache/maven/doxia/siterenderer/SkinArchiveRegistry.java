@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the skin archives opened by the renderer, to open and index each skin jar once for every module and
+ * every locale of a build.
+ *
+ * @since 2.1
+ */
+class SkinArchiveRegistry implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SkinArchiveRegistry.class);
+
+    private final Map<File, SkinArchive> archives = new HashMap<>();
+
+    /**
+     * Archives of skin files rebuilt during the build: they may still be in use, they are closed with the registry.
+     */
+    private final List<SkinArchive> outdated = new ArrayList<>();
+
+    /**
+     * Get the archive of a skin file, opening it if not yet opened or if the file changed since it was opened.
+     *
+     * @param skinFile the skin jar
+     * @return the skin archive
+     * @throws IOException if the skin jar can't be opened
+     */
+    synchronized SkinArchive get(File skinFile) throws IOException {
+        if (skinFile == null) {
+            throw new IOException("Error opening ZipFile: null");
+        }
+
+        File key = skinFile.getAbsoluteFile();
+        SkinArchive archive = archives.get(key);
+        if (archive == null || !archive.isCurrent()) {
+            if (archive != null) {
+                outdated.add(archive);
+            }
+            archive = new SkinArchive(key);
+            archives.put(key, archive);
+        }
+        return archive;
+    }
+
+    /**
+     * Close every opened skin archive.
+     */
+    @Override
+    public synchronized void close() {
+        List<SkinArchive> all = new ArrayList<>(archives.values());
+        all.addAll(outdated);
+        archives.clear();
+        outdated.clear();
+
+        for (SkinArchive archive : all) {
+            try {
+                archive.close();
+            } catch (IOException e) {
+                LOGGER.debug("Failed to close skin archive", e);
+            }
+        }
+    }
+}
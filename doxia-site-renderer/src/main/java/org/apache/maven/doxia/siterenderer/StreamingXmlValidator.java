@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.maven.doxia.parser.ParseException;
+import org.apache.maven.doxia.util.XmlValidator;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * XML validator with the same settings as Doxia {@link XmlValidator}, validating documents while they are parsed.
+ * The SAX parser factory and the validating readers are created once and reused from document to document, and
+ * entities are resolved with a {@link CatalogEntityResolver}, caching every DTD, entity set or schema read.
+ * Validations run in the {@link PipelineExecutor}.
+ *
+ * @since 2.1
+ */
+class StreamingXmlValidator {
+    private final EntityResolver entityResolver = new CatalogEntityResolver();
+
+    private final XmlValidator.MessagesErrorHandler errorHandler = new XmlValidator.MessagesErrorHandler();
+
+    private final Queue<XMLReader> xmlReaders = new ConcurrentLinkedQueue<>();
+
+    private SAXParserFactory parserFactory;
+
+    private final PipelineExecutor executor;
+
+    /**
+     * @param executor the executor running the validations
+     */
+    StreamingXmlValidator(PipelineExecutor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Wrap a document reader to have the document validated while it is read.
+     * Once the document is parsed, {@link ValidatingReader#awaitValidation()} must be called to get the result.
+     *
+     * @param source the document reader
+     * @param resource the document file
+     * @param times the document rendering times, {@code null} if not timed
+     * @return the reader to parse the document from
+     */
+    ValidatingReader validate(Reader source, File resource, RenderReport.DocumentTimes times) {
+        ValidatingReader reader = new ValidatingReader(source);
+
+        InputSource input = new InputSource(reader.getValidationReader());
+        input.setSystemId(resource.toURI().toString());
+
+        reader.setValidation(executor.submit(() -> {
+            long start = System.nanoTime();
+            try {
+                validate(input);
+            } finally {
+                RenderReport.record(times, RenderReport.Phase.VALIDATE, start);
+                reader.validationDone();
+            }
+            return null;
+        }));
+
+        return reader;
+    }
+
+    private void validate(InputSource input) throws ParseException, IOException {
+        XMLReader xmlReader = xmlReaders.poll();
+        try {
+            if (xmlReader == null) {
+                xmlReader = createXmlReader();
+            }
+            xmlReader.parse(input);
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new ParseException("Error validating the model", e);
+        } finally {
+            if (xmlReader != null) {
+                xmlReaders.offer(xmlReader);
+            }
+        }
+    }
+
+    private XMLReader createXmlReader() throws SAXException, ParserConfigurationException {
+        SAXParser parser;
+        synchronized (this) {
+            if (parserFactory == null) {
+                parserFactory = SAXParserFactory.newInstance();
+                parserFactory.setNamespaceAware(true);
+            }
+            parser = parserFactory.newSAXParser();
+        }
+        // If both DTD and XSD are provided, force XSD
+        parser.setProperty(
+                "http://java.sun.com/xml/jaxp/properties/schemaLanguage", "http://www.w3.org/2001/XMLSchema");
+        // Always force language-neutral exception messages for MessagesErrorHandler
+        parser.setProperty("http://apache.org/xml/properties/locale", Locale.ROOT);
+
+        XMLReader xmlReader = parser.getXMLReader();
+        xmlReader.setFeature("http://xml.org/sax/features/validation", true);
+        xmlReader.setFeature("http://apache.org/xml/features/validation/dynamic", true);
+        xmlReader.setFeature("http://apache.org/xml/features/validation/schema", true);
+        xmlReader.setErrorHandler(errorHandler);
+        xmlReader.setEntityResolver(entityResolver);
+        return xmlReader;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.apache.maven.doxia.parser.ParseException;
+
+/**
+ * Reader copying every character read by the Doxia parser into a bounded pipe, consumed by a SAX validation
+ * running concurrently: the document is neither buffered in memory nor read twice.
+ * Once the parser is done, closing the reader feeds the validation with the unread rest of the document, if any,
+ * and {@link #awaitValidation()} reports its result.
+ *
+ * @since 2.1
+ */
+class ValidatingReader extends FilterReader {
+    private static final int PIPE_CAPACITY = 16 * 1024;
+
+    private final CharPipe pipe = new CharPipe(PIPE_CAPACITY);
+
+    private Future<?> validation;
+
+    private boolean closed;
+
+    /**
+     * @param in the reader to read from
+     */
+    ValidatingReader(Reader in) {
+        super(in);
+    }
+
+    /**
+     * @return the reader the validation reads the document from
+     */
+    Reader getValidationReader() {
+        return pipe;
+    }
+
+    /**
+     * @param validation the validation reading from {@link #getValidationReader()}
+     */
+    void setValidation(Future<?> validation) {
+        this.validation = validation;
+    }
+
+    /**
+     * Mark the validation as done: it has stopped reading, the rest of the document will not be copied.
+     */
+    void validationDone() {
+        pipe.close();
+    }
+
+    @Override
+    public int read() throws IOException {
+        int c = in.read();
+        if (c < 0) {
+            pipe.finish();
+        } else {
+            pipe.write(new char[] {(char) c}, 0, 1);
+        }
+        return c;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        int n = in.read(cbuf, off, len);
+        if (n < 0) {
+            pipe.finish();
+        } else {
+            pipe.write(cbuf, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        char[] buffer = new char[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported");
+    }
+
+    /**
+     * Close the reader and wait for the result of the validation.
+     *
+     * @throws ParseException if the document is not valid
+     * @throws IOException if an I/O error occurs
+     */
+    void awaitValidation() throws ParseException, IOException {
+        close();
+
+        try {
+            validation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while validating");
+        } catch (CancellationException e) {
+            throw new IOException("Validation cancelled", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ParseException) {
+                throw (ParseException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new ParseException((Exception) cause);
+        }
+    }
+
+    /**
+     * Copy the rest of the document to the validation, as parsers may stop reading before its end, then close the
+     * underlying reader. Should the copy fail, the validation is aborted.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            char[] buffer = new char[8192];
+            while (!pipe.isDiscarded() && read(buffer, 0, buffer.length) >= 0) {
+                // copy to the validation
+            }
+            pipe.finish();
+        } finally {
+            try {
+                in.close();
+            } finally {
+                pipe.abort(null);
+            }
+        }
+    }
+}
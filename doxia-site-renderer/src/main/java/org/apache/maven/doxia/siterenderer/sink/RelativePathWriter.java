@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer.sink;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer replacing <code>$relativePath</code> with the relative path to the site base directory in a single pass,
+ * even when the token is split across writes. Chunks without any <code>$</code> are written as is, without copy.
+ *
+ * @since 2.1
+ */
+class RelativePathWriter extends FilterWriter {
+    static final String TOKEN = "$relativePath";
+
+    private final String relativePath;
+
+    /**
+     * Number of characters of the token matched at the end of the previous writes, not yet written.
+     */
+    private int matched;
+
+    /**
+     * @param out the writer to write to
+     * @param relativePath the replacement of the token
+     */
+    RelativePathWriter(Writer out, String relativePath) {
+        super(out);
+        this.relativePath = relativePath;
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        write(new char[] {(char) c}, 0, 1);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        if (matched == 0) {
+            int dollar = str.indexOf('$', off);
+            if (dollar < 0 || dollar >= off + len) {
+                out.write(str, off, len);
+                return;
+            }
+        }
+
+        char[] chars = new char[len];
+        str.getChars(off, off + len, chars, 0);
+        write(chars, 0, len);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int end = off + len;
+        int start = off;
+        for (int i = off; i < end; i++) {
+            char c = cbuf[i];
+            if (matched > 0) {
+                if (c == TOKEN.charAt(matched)) {
+                    if (++matched == TOKEN.length()) {
+                        out.write(relativePath);
+                        matched = 0;
+                    }
+                    start = i + 1;
+                    continue;
+                }
+                // the token starts with its only '$': the current char can only start a new match
+                out.write(TOKEN, 0, matched);
+                matched = 0;
+            }
+
+            if (c == '$') {
+                out.write(cbuf, start, i - start);
+                matched = 1;
+                start = i + 1;
+            }
+        }
+        out.write(cbuf, start, end - start);
+    }
+
+    /**
+     * Write the start of a token held back at the end of the previous writes, if any.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void writePending() throws IOException {
+        if (matched > 0) {
+            out.write(TOKEN, 0, matched);
+            matched = 0;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writePending();
+        super.close();
+    }
+}
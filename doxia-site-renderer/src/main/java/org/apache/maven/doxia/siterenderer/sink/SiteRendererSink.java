@@ -18,7 +18,9 @@
  */
 package org.apache.maven.doxia.siterenderer.sink;
 
+import java.io.IOException;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
@@ -28,7 +30,6 @@ import org.apache.maven.doxia.module.xhtml5.Xhtml5Sink;
 import org.apache.maven.doxia.sink.SinkEventAttributes;
 import org.apache.maven.doxia.siterenderer.DocumentContent;
 import org.apache.maven.doxia.siterenderer.DocumentRenderingContext;
-import org.codehaus.plexus.util.StringUtils;
 
 /**
  * Sink for site rendering of a document, to allow later merge document's output with a template.
@@ -39,6 +40,8 @@ import org.codehaus.plexus.util.StringUtils;
  */
 @SuppressWarnings("checkstyle:methodname")
 public class SiteRendererSink extends Xhtml5Sink implements DocumentContent {
+    private static final int BODY_CHUNK_SIZE = 8192;
+
     private String date;
 
     private String title;
@@ -47,7 +50,9 @@ public class SiteRendererSink extends Xhtml5Sink implements DocumentContent {
 
     private final StringWriter headWriter;
 
-    private final Writer writer;
+    private final StringWriter writer;
+
+    private final RelativePathWriter relativePathWriter;
 
     private DocumentRenderingContext docRenderingContext;
 
@@ -60,16 +65,23 @@ public class SiteRendererSink extends Xhtml5Sink implements DocumentContent {
         this(new StringWriter(), docRenderingContext);
     }
 
+    private SiteRendererSink(StringWriter writer, DocumentRenderingContext docRenderingContext) {
+        this(writer, createRelativePathWriter(writer, docRenderingContext), docRenderingContext);
+    }
+
     /**
      * Construct a new SiteRendererSink for a document.
      *
-     * @param writer the writer for the sink.
+     * @param writer the writer for the body.
+     * @param relativePathWriter the writer replacing <code>$relativePath</code> in the body, may be {@code null}.
      * @param docRenderingContext the document's rendering context.
      */
-    private SiteRendererSink(StringWriter writer, DocumentRenderingContext docRenderingContext) {
-        super(writer);
+    private SiteRendererSink(
+            StringWriter writer, RelativePathWriter relativePathWriter, DocumentRenderingContext docRenderingContext) {
+        super((relativePathWriter == null) ? writer : relativePathWriter);
 
         this.writer = writer;
+        this.relativePathWriter = relativePathWriter;
         this.headWriter = new StringWriter();
         this.docRenderingContext = docRenderingContext;
 
@@ -165,28 +177,31 @@ public class SiteRendererSink extends Xhtml5Sink implements DocumentContent {
         setHeadFlag(true);
     }
 
-    /** {@inheritDoc} */
+    private static RelativePathWriter createRelativePathWriter(
+            Writer writer, DocumentRenderingContext docRenderingContext) {
+        if (docRenderingContext == null) {
+            return null;
+        }
+
+        String relativePathToBasedir = docRenderingContext.getRelativePath();
+
+        return new RelativePathWriter(writer, (relativePathToBasedir == null) ? "." : relativePathToBasedir);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <code>$relativePath</code> is replaced in body content while it is written.
+     */
     @Override
     protected void write(String text) {
-        String txt = text;
-
         if (isHeadFlag()) {
-            headWriter.write(unifyEOLs(txt));
+            headWriter.write(unifyEOLs(text));
 
             return;
         }
 
-        if (docRenderingContext != null) {
-            String relativePathToBasedir = docRenderingContext.getRelativePath();
-
-            if (relativePathToBasedir == null) {
-                txt = StringUtils.replace(txt, "$relativePath", ".");
-            } else {
-                txt = StringUtils.replace(txt, "$relativePath", relativePathToBasedir);
-            }
-        }
-
-        super.write(txt);
+        super.write(text);
     }
 
     // DocumentContent interface
@@ -208,11 +223,59 @@ public class SiteRendererSink extends Xhtml5Sink implements DocumentContent {
 
     /** {@inheritDoc} */
     public String getBody() {
+        writePendingBody();
+
         String body = writer.toString();
 
         return body.length() > 0 ? body : null;
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasBody() {
+        writePendingBody();
+
+        return writer.getBuffer().length() > 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getBodyLength() {
+        writePendingBody();
+
+        return writer.getBuffer().length();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The body is copied from the sink buffer by chunks, without building a String.
+     */
+    @Override
+    public void writeBodyTo(Writer out) throws IOException {
+        writePendingBody();
+
+        StringBuffer body = writer.getBuffer();
+        char[] chunk = new char[BODY_CHUNK_SIZE];
+        int length = body.length();
+        for (int start = 0; start < length; start += chunk.length) {
+            int end = Math.min(start + chunk.length, length);
+            body.getChars(start, end, chunk, 0);
+            out.write(chunk, 0, end - start);
+        }
+    }
+
+    private void writePendingBody() {
+        if (relativePathWriter != null) {
+            try {
+                relativePathWriter.writePending();
+            } catch (IOException e) {
+                // cannot happen when writing to a StringWriter
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     public String getHead() {
         String head = headWriter.toString();
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.apache.maven.artifact.Artifact;
+
+/**
+ * Java Flight Recorder events of the site rendering, used from the multi-release jar on Java 11 and later.
+ * Events are only allocated while their type is enabled in a recording, and their values only computed when
+ * committed.
+ *
+ * @since 2.1
+ */
+final class SiteRenderingEvents {
+    private static final EventType RENDER_DOCUMENT = EventType.getEventType(RenderDocumentEvent.class);
+
+    private static final EventType MERGE_DOCUMENT = EventType.getEventType(MergeDocumentEvent.class);
+
+    private static final EventType COPY_RESOURCES = EventType.getEventType(CopyResourcesEvent.class);
+
+    private static final EventType LOCATE_DOCUMENTS = EventType.getEventType(LocateDocumentsEvent.class);
+
+    private SiteRenderingEvents() {
+        // no instances
+    }
+
+    static Object beginRenderDocument() {
+        return RENDER_DOCUMENT.isEnabled() ? begin(new RenderDocumentEvent()) : null;
+    }
+
+    static void endRenderDocument(
+            Object event, DocumentRenderingContext docRenderingContext, SiteRenderingContext siteContext) {
+        RenderDocumentEvent e = (RenderDocumentEvent) event;
+        if (end(e)) {
+            e.documentPath = getDocumentPath(docRenderingContext);
+            e.parserId = docRenderingContext.getParserId();
+            e.locale = getLocale(siteContext);
+            e.skin = getSkin(siteContext);
+            if (docRenderingContext.isDoxiaSource()) {
+                e.bytesIn = new File(docRenderingContext.getBasedir(), docRenderingContext.getInputName()).length();
+            }
+            e.commit();
+        }
+    }
+
+    static Object beginMergeDocument() {
+        return MERGE_DOCUMENT.isEnabled() ? begin(new MergeDocumentEvent()) : null;
+    }
+
+    static void endMergeDocument(Object event, DocumentContent content, SiteRenderingContext siteContext) {
+        MergeDocumentEvent e = (MergeDocumentEvent) event;
+        if (end(e)) {
+            DocumentRenderingContext docRenderingContext = content.getRenderingContext();
+            if (docRenderingContext != null) {
+                e.documentPath = getDocumentPath(docRenderingContext);
+                e.parserId = docRenderingContext.getParserId();
+            }
+            e.locale = getLocale(siteContext);
+            e.skin = getSkin(siteContext);
+            e.template = siteContext.getTemplateName();
+            // the body is streamed into the template: don't build it as a String
+            e.bodyLength = content.getBodyLength();
+            e.commit();
+        }
+    }
+
+    static Object beginCopyResources() {
+        return COPY_RESOURCES.isEnabled() ? begin(new CopyResourcesEvent()) : null;
+    }
+
+    static void endCopyResources(
+            Object event, SiteRenderingContext siteContext, int copied, int unchanged, long copiedBytes) {
+        CopyResourcesEvent e = (CopyResourcesEvent) event;
+        if (end(e)) {
+            e.locale = getLocale(siteContext);
+            e.skin = getSkin(siteContext);
+            e.copied = copied;
+            e.unchanged = unchanged;
+            e.bytesCopied = copiedBytes;
+            e.commit();
+        }
+    }
+
+    static Object beginLocateDocuments() {
+        return LOCATE_DOCUMENTS.isEnabled() ? begin(new LocateDocumentsEvent()) : null;
+    }
+
+    static void endLocateDocuments(Object event, SiteRenderingContext siteContext, int documents) {
+        LocateDocumentsEvent e = (LocateDocumentsEvent) event;
+        if (end(e)) {
+            e.locale = getLocale(siteContext);
+            e.documents = documents;
+            e.commit();
+        }
+    }
+
+    private static Event begin(Event event) {
+        event.begin();
+        return event;
+    }
+
+    private static boolean end(Event event) {
+        if (event == null) {
+            return false;
+        }
+        event.end();
+        return event.shouldCommit();
+    }
+
+    private static String getDocumentPath(DocumentRenderingContext docRenderingContext) {
+        return docRenderingContext.isDoxiaSource()
+                ? docRenderingContext.getDoxiaSourcePath()
+                : docRenderingContext.getOutputName();
+    }
+
+    private static String getLocale(SiteRenderingContext siteContext) {
+        return siteContext.getLocale() == null ? null : siteContext.getLocale().toString();
+    }
+
+    private static String getSkin(SiteRenderingContext siteContext) {
+        Artifact skin = siteContext.getSkin();
+        return skin == null ? null : skin.getId();
+    }
+
+    @Name("org.apache.maven.doxia.RenderDocument")
+    @Label("Render Document")
+    @Description("Parsing of a document and merge into the site template")
+    @Category({"Maven", "Doxia"})
+    static class RenderDocumentEvent extends Event {
+        @Label("Document Path")
+        String documentPath;
+
+        @Label("Parser Id")
+        String parserId;
+
+        @Label("Locale")
+        String locale;
+
+        @Label("Skin")
+        String skin;
+
+        @Label("Bytes In")
+        @DataAmount
+        long bytesIn;
+    }
+
+    @Name("org.apache.maven.doxia.MergeDocument")
+    @Label("Merge Document")
+    @Description("Merge of a rendered document into the site template")
+    @Category({"Maven", "Doxia"})
+    static class MergeDocumentEvent extends Event {
+        @Label("Document Path")
+        String documentPath;
+
+        @Label("Parser Id")
+        String parserId;
+
+        @Label("Locale")
+        String locale;
+
+        @Label("Skin")
+        String skin;
+
+        @Label("Template")
+        String template;
+
+        @Label("Body Length")
+        @Description("Number of characters of the rendered document body")
+        int bodyLength;
+    }
+
+    @Name("org.apache.maven.doxia.CopyResources")
+    @Label("Copy Resources")
+    @Description("Copy of the skin and site resources into the output directory")
+    @Category({"Maven", "Doxia"})
+    static class CopyResourcesEvent extends Event {
+        @Label("Locale")
+        String locale;
+
+        @Label("Skin")
+        String skin;
+
+        @Label("Copied")
+        int copied;
+
+        @Label("Unchanged")
+        int unchanged;
+
+        @Label("Bytes Copied")
+        @DataAmount
+        long bytesCopied;
+    }
+
+    @Name("org.apache.maven.doxia.LocateDocuments")
+    @Label("Locate Documents")
+    @Description("Scan of the site directories for Doxia documents")
+    @Category({"Maven", "Doxia"})
+    static class LocateDocumentsEvent extends Event {
+        @Label("Locale")
+        String locale;
+
+        @Label("Documents")
+        int documents;
+    }
+}
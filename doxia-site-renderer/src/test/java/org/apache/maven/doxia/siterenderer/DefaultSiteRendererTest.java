@@ -29,6 +29,9 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -37,6 +40,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.jar.JarOutputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 
 import org.apache.commons.io.IOUtils;
@@ -45,16 +52,20 @@ import org.apache.maven.artifact.DefaultArtifact;
 import org.apache.maven.artifact.versioning.VersionRange;
 import org.apache.maven.doxia.Doxia;
 import org.apache.maven.doxia.parser.ParseException;
+import org.apache.maven.doxia.parser.Parser;
+import org.apache.maven.doxia.parser.manager.ParserManager;
 import org.apache.maven.doxia.sink.Sink;
 import org.apache.maven.doxia.site.SiteModel;
 import org.apache.maven.doxia.site.io.xpp3.SiteXpp3Reader;
 import org.apache.maven.doxia.siterenderer.SiteRenderingContext.SiteDirectory;
 import org.apache.maven.doxia.siterenderer.sink.SiteRendererSink;
 import org.apache.maven.doxia.xsd.AbstractXmlValidator;
+import org.apache.velocity.context.Context;
 import org.codehaus.plexus.PlexusContainer;
 import org.codehaus.plexus.testing.PlexusTest;
 import org.codehaus.plexus.util.FileUtils;
 import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.Os;
 import org.codehaus.plexus.util.ReaderFactory;
 import org.codehaus.plexus.util.ReflectionUtils;
 import org.codehaus.plexus.util.StringUtils;
@@ -68,14 +79,19 @@ import static org.codehaus.plexus.testing.PlexusExtension.getBasedir;
 import static org.codehaus.plexus.testing.PlexusExtension.getTestFile;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -121,7 +137,7 @@ public class DefaultSiteRendererTest {
         }
 
         skinIS = new ByteArrayInputStream(
-                "<main id=\"contentBox\">$bodyContent</main>".getBytes(StandardCharsets.UTF_8));
+                "<main id=\"contentBox\">$bodyRenderer</main>".getBytes(StandardCharsets.UTF_8));
         jarOS = new JarOutputStream(new FileOutputStream(minimalSkinJar));
         try {
             jarOS.putNextEntry(new ZipEntry("META-INF/maven/site.vm"));
@@ -150,13 +166,12 @@ public class DefaultSiteRendererTest {
         final String testDocument = "head.xml";
         final String exceptionMessage = "parse error occurred";
 
-        Doxia doxiaInstance = container.lookup(Doxia.class);
-        Doxia doxiaSpy = spy(doxiaInstance);
-        Mockito.doThrow(new ParseException(exceptionMessage))
-                .when(doxiaSpy)
-                .parse(Mockito.<Reader>any(), Mockito.anyString(), Mockito.<Sink>any(), Mockito.nullable(String.class));
         SiteRenderer siteRenderer = container.lookup(SiteRenderer.class);
-        ReflectionUtils.setVariableValueInObject(siteRenderer, "doxia", doxiaSpy);
+        Parser parserSpy =
+                spyParsers(siteRenderer, Collections.singleton("xdoc")).get("xdoc");
+        Mockito.doThrow(new ParseException(exceptionMessage))
+                .when(parserSpy)
+                .parse(Mockito.<Reader>any(), Mockito.<Sink>any(), Mockito.nullable(String.class));
 
         DocumentRenderingContext docRenderingContext =
                 new DocumentRenderingContext(testBasedir, "", testDocument, "xdoc", "", false);
@@ -181,13 +196,12 @@ public class DefaultSiteRendererTest {
         final String testDocumentName = "head.xml";
         final String exceptionMessage = "parse error occurred";
 
-        Doxia doxiaInstance = container.lookup(Doxia.class);
-        Doxia doxiaSpy = spy(doxiaInstance);
-        Mockito.doThrow(new ParseException(exceptionMessage, 42, 36))
-                .when(doxiaSpy)
-                .parse(Mockito.<Reader>any(), Mockito.anyString(), Mockito.<Sink>any(), Mockito.nullable(String.class));
         SiteRenderer siteRenderer = container.lookup(SiteRenderer.class);
-        ReflectionUtils.setVariableValueInObject(siteRenderer, "doxia", doxiaSpy);
+        Parser parserSpy =
+                spyParsers(siteRenderer, Collections.singleton("xdoc")).get("xdoc");
+        Mockito.doThrow(new ParseException(exceptionMessage, 42, 36))
+                .when(parserSpy)
+                .parse(Mockito.<Reader>any(), Mockito.<Sink>any(), Mockito.nullable(String.class));
 
         DocumentRenderingContext docRenderingContext =
                 new DocumentRenderingContext(testBasedir, "", testDocumentName, "xdoc", "", false);
@@ -247,6 +261,581 @@ public class DefaultSiteRendererTest {
         validatePages();
     }
 
+    @Test
+    public void testRenderParallel() throws Exception {
+        File serialOutput = getTestFile("target/output-serial");
+        File parallelOutput = getTestFile("target/output-parallel");
+        FileUtils.deleteDirectory(serialOutput);
+        FileUtils.deleteDirectory(parallelOutput);
+
+        SiteModel siteModel =
+                new SiteXpp3Reader().read(new FileInputStream(getTestFile("src/test/resources/site/site.xml")));
+
+        SiteRenderingContext ctxt = getSiteRenderingContext(siteModel, "src/test/resources/site", false);
+        ctxt.setRootDirectory(getTestFile(""));
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, serialOutput);
+
+        ctxt = getSiteRenderingContext(siteModel, "src/test/resources/site", false);
+        ctxt.setRootDirectory(getTestFile(""));
+        ctxt.setParallelism(4);
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, parallelOutput);
+
+        List<String> files = FileUtils.getFileNames(serialOutput, "**/*.html", null, false);
+        assertFalse(files.isEmpty());
+        for (String file : files) {
+            assertEquals(
+                    FileUtils.fileRead(new File(serialOutput, file), "UTF-8"),
+                    FileUtils.fileRead(new File(parallelOutput, file), "UTF-8"),
+                    file);
+        }
+    }
+
+    @Test
+    public void testRenderLocalesParseSharedSourcesOnce() throws Exception {
+        File siteDirectory = getTestFile("target/locales-site");
+        File output = getTestFile("target/output-locales");
+        FileUtils.deleteDirectory(siteDirectory);
+        FileUtils.deleteDirectory(output);
+        FileUtils.copyDirectoryStructure(getTestFile("src/test/resources/site/apt"), new File(siteDirectory, "apt"));
+        FileUtils.fileWrite(
+                new File(siteDirectory, "apt/velocity.apt.vm"), "UTF-8", " -----\n Velocity\n -----\n\nVelocity\n");
+
+        Parser aptSpy = spyParsers(siteRenderer, Collections.singleton("apt")).get("apt");
+        List<LocaleRendering> localeRenderings = new ArrayList<>();
+        for (Locale locale : new Locale[] {Locale.ROOT, Locale.FRENCH}) {
+            SiteRenderingContext ctxt = getSiteRenderingContext(new SiteModel(), "target/locales-site", false);
+            ctxt.setRootDirectory(getTestFile(""));
+            ctxt.setLocale(locale);
+            File localeOutput = Locale.ROOT.equals(locale) ? output : new File(output, locale.toString());
+            localeRenderings.add(new LocaleRendering(ctxt, localeOutput));
+        }
+
+        siteRenderer.locateDocumentFiles(localeRenderings);
+        Map<String, DocumentRenderer> documents = localeRenderings.get(0).getDocuments();
+        assertTrue(documents.containsKey("velocity.html"));
+        assertEquals(documents.keySet(), localeRenderings.get(1).getDocuments().keySet());
+        assertNotSame(
+                documents.get("apt.html").getRenderingContext(),
+                localeRenderings.get(1).getDocuments().get("apt.html").getRenderingContext());
+
+        siteRenderer.render(localeRenderings);
+
+        // each source is parsed once, but the Velocity one which is parsed for each locale
+        verify(aptSpy, times(documents.size() + 1))
+                .parse(Mockito.<Reader>any(), Mockito.<Sink>any(), Mockito.anyString());
+        for (LocaleRendering localeRendering : localeRenderings) {
+            for (String document : documents.keySet()) {
+                assertTrue(FileUtils.fileRead(new File(localeRendering.getOutputDirectory(), document), "UTF-8")
+                        .contains("contentBox"));
+            }
+        }
+    }
+
+    @Test
+    public void testRenderParallelReportsFirstFailingDocument() throws Exception {
+        SiteRenderingContext context = new SiteRenderingContext();
+        context.setSiteModel(new SiteModel());
+        context.setParallelism(2);
+
+        List<DocumentRenderer> documents = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            DocumentRenderer docRenderer = mock(DocumentRenderer.class);
+            when(docRenderer.getOutputName()).thenReturn("parallel/doc" + i + ".html");
+            when(docRenderer.isOverwrite()).thenReturn(true);
+            when(docRenderer.getRenderingContext())
+                    .thenReturn(
+                            new DocumentRenderingContext(new File(""), "", "doc" + i + ".apt", "apt", "apt", false));
+            Mockito.doThrow(new RendererException("doc" + i))
+                    .when(docRenderer)
+                    .renderDocument(Mockito.any(), Mockito.any(), Mockito.any());
+            documents.add(docRenderer);
+        }
+
+        RendererException e = assertThrows(
+                RendererException.class,
+                () -> siteRenderer.render(documents, context, getTestFile("target/output-parallel-failure")));
+        assertEquals("doc0", e.getMessage());
+    }
+
+    @Test
+    public void testRenderManifest() throws Exception {
+        File siteDirectory = getTestFile("target/manifest-site");
+        File output = getTestFile("target/output-manifest");
+        FileUtils.deleteDirectory(siteDirectory);
+        FileUtils.deleteDirectory(output);
+        FileUtils.deleteDirectory(getDefaultStateDirectory(output));
+        FileUtils.copyDirectoryStructure(getTestFile("src/test/resources/site/apt"), new File(siteDirectory, "apt"));
+
+        SiteModel siteModel =
+                new SiteXpp3Reader().read(new FileInputStream(getTestFile("src/test/resources/site/site.xml")));
+
+        SiteRenderingContext ctxt = getSiteRenderingContext(siteModel, "target/manifest-site", false);
+        ctxt.setRootDirectory(getTestFile(""));
+        ctxt.setRenderManifest(true);
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+
+        // state files are kept in the build directory, not deployed with the output directory
+        assertFalse(new File(output, RenderManifest.MANIFEST_NAME).exists());
+        assertEquals(
+                getTestFile("target/doxia-state"),
+                getDefaultStateDirectory(output).getParentFile());
+        assertTrue(new File(getDefaultStateDirectory(output), RenderManifest.MANIFEST_NAME).isFile());
+
+        // a touched but unchanged source is not rendered again
+        File apt = new File(output, "apt.html");
+        FileUtils.fileWrite(apt, "UTF-8", "stale");
+        apt.setLastModified(System.currentTimeMillis() - 60_000L);
+        new File(siteDirectory, "apt/apt.apt").setLastModified(System.currentTimeMillis());
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        assertEquals("stale", FileUtils.fileRead(apt, "UTF-8"));
+
+        // a changed site model renders again
+        siteModel.setName("Changed name");
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        assertTrue(FileUtils.fileRead(apt, "UTF-8").contains("contentBox"));
+
+        // a changed project version renders again
+        Map<String, Object> templateProperties = new HashMap<>();
+        TestProject project = new TestProject("1.0");
+        templateProperties.put("project", project);
+        ctxt.setTemplateProperties(templateProperties);
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        FileUtils.fileWrite(apt, "UTF-8", "stale");
+        apt.setLastModified(System.currentTimeMillis() - 60_000L);
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        assertEquals("stale", FileUtils.fileRead(apt, "UTF-8"));
+        templateProperties.put("project", new TestProject("1.1"));
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        assertTrue(FileUtils.fileRead(apt, "UTF-8").contains("contentBox"));
+    }
+
+    /**
+     * Project template property, with coordinates like the Maven project.
+     */
+    public static class TestProject {
+        private final String version;
+
+        TestProject(String version) {
+            this.version = version;
+        }
+
+        public String getGroupId() {
+            return "org.apache.maven.doxia";
+        }
+
+        public String getVersion() {
+            return version;
+        }
+    }
+
+    @Test
+    public void testStateDirectory() {
+        SiteRenderingContext ctxt = new SiteRenderingContext();
+        File output = getTestFile("target/site");
+        File localeOutput = new File(output, "fr");
+        File defaultStateDirectory = getTestFile("target/doxia-state");
+
+        // by default, in the build directory: never in the site output directory for the nested one of a locale
+        ctxt.setRootDirectory(getTestFile(""));
+        assertEquals(defaultStateDirectory, ctxt.getStateDirectory(output).getParentFile());
+        assertEquals(defaultStateDirectory, ctxt.getStateDirectory(localeOutput).getParentFile());
+        assertNotEquals(ctxt.getStateDirectory(output), ctxt.getStateDirectory(localeOutput));
+
+        // without root directory, next to the output directory of the site
+        ctxt = new SiteRenderingContext();
+        ctxt.setLocale(Locale.FRENCH);
+        ctxt.addSiteLocales(Arrays.asList(Locale.ENGLISH, Locale.FRENCH));
+        assertEquals(defaultStateDirectory, ctxt.getStateDirectory(output).getParentFile());
+        assertEquals(defaultStateDirectory, ctxt.getStateDirectory(localeOutput).getParentFile());
+        assertEquals(
+                getTestFile("target/site/docs/doxia-state"),
+                ctxt.getStateDirectory(new File(output, "docs/api")).getParentFile());
+
+        // nested output directories get their own subdirectory of a shared state directory
+        File stateDirectory = getTestFile("target/doxia-state");
+        ctxt.setStateDirectory(stateDirectory);
+        assertEquals(stateDirectory, ctxt.getStateDirectory(output).getParentFile());
+        assertEquals(stateDirectory, ctxt.getStateDirectory(localeOutput).getParentFile());
+        assertNotEquals(ctxt.getStateDirectory(output), ctxt.getStateDirectory(localeOutput));
+        assertNotEquals(ctxt.getStateDirectory(localeOutput), ctxt.getStateDirectory(getTestFile("target/fr")));
+    }
+
+    /**
+     * Get the default state directory of an output directory of the tests, rendered with the module as root directory.
+     */
+    private static File getDefaultStateDirectory(File output) {
+        SiteRenderingContext ctxt = new SiteRenderingContext();
+        ctxt.setRootDirectory(getTestFile(""));
+        return ctxt.getStateDirectory(output);
+    }
+
+    @Test
+    public void testRenderCache() throws Exception {
+        File cacheDirectory = getTestFile("target/render-cache");
+        File output = getTestFile("target/output-cache");
+        FileUtils.deleteDirectory(cacheDirectory);
+        FileUtils.deleteDirectory(output);
+
+        SiteModel siteModel =
+                new SiteXpp3Reader().read(new FileInputStream(getTestFile("src/test/resources/site/site.xml")));
+
+        SiteRenderingContext ctxt = getSiteRenderingContext(siteModel, "src/test/resources/site", false);
+        ctxt.setRootDirectory(getTestFile(""));
+        ctxt.setRenderCacheDirectory(cacheDirectory);
+        Map<String, DocumentRenderer> documents = siteRenderer.locateDocumentFiles(ctxt);
+        // the parser implementation is part of the key: spy parsers for both renderings
+        Set<String> parserIds = new HashSet<>();
+        for (DocumentRenderer document : documents.values()) {
+            parserIds.add(document.getRenderingContext().getParserId());
+        }
+        Map<String, Parser> parserSpies = spyParsers(siteRenderer, parserIds);
+        siteRenderer.render(documents.values(), ctxt, output);
+        File apt = new File(output, "apt.html");
+        String rendered = FileUtils.fileRead(apt, "UTF-8");
+        assertFalse(FileUtils.getFileNames(cacheDirectory, "**/*.doxia", null, false)
+                .isEmpty());
+
+        // a clean build renders from the cache, without parsing but documents including snippets
+        FileUtils.deleteDirectory(output);
+        Mockito.clearInvocations(parserSpies.values().toArray());
+        siteRenderer.render(documents.values(), ctxt, output);
+        for (Parser parserSpy : parserSpies.values()) {
+            verify(parserSpy, never())
+                    .parse(
+                            Mockito.<Reader>any(),
+                            Mockito.<Sink>any(),
+                            Mockito.argThat(path -> !path.endsWith("apt.apt") && !path.endsWith("macro.xml")));
+        }
+        verify(parserSpies.get("apt"), times(1))
+                .parse(Mockito.<Reader>any(), Mockito.<Sink>any(), Mockito.endsWith("apt/apt.apt"));
+        assertEquals(rendered, FileUtils.fileRead(apt, "UTF-8"));
+
+        // a parser configuration without key is not cached
+        ctxt.setParserConfigurator((parserId, filePath, parser) -> false);
+        FileUtils.deleteDirectory(cacheDirectory);
+        siteRenderer.render(documents.values(), ctxt, output);
+        assertFalse(cacheDirectory.exists());
+    }
+
+    @Test
+    public void testPruneStaleOutput() throws Exception {
+        File siteDirectory = getTestFile("target/prune-site");
+        File output = getTestFile("target/output-prune");
+        FileUtils.deleteDirectory(siteDirectory);
+        FileUtils.deleteDirectory(output);
+        FileUtils.deleteDirectory(getDefaultStateDirectory(output));
+        FileUtils.copyDirectoryStructure(getTestFile("src/test/resources/site/apt"), new File(siteDirectory, "apt"));
+        FileUtils.mkdir(new File(siteDirectory, "apt/sub").getPath());
+        FileUtils.mkdir(new File(siteDirectory, "resources/images").getPath());
+        FileUtils.mkdir(new File(output, "apidocs").getPath());
+        FileUtils.fileWrite(new File(siteDirectory, "apt/sub/renamed.apt"), "UTF-8", " -----\n Renamed\n -----\n");
+        FileUtils.fileWrite(new File(siteDirectory, "resources/images/old.png"), "UTF-8", "png");
+        FileUtils.fileWrite(new File(siteDirectory, "resources/extra.css"), "UTF-8", "a { color: black; }");
+        File foreign = new File(output, "apidocs/index.html");
+        FileUtils.fileWrite(foreign, "UTF-8", "not rendered");
+
+        SiteRenderingContext ctxt = getPruneSiteRenderingContext();
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        siteRenderer.copyResources(ctxt, output);
+        siteRenderer.pruneStaleOutput(ctxt, output);
+        assertTrue(new File(output, "sub/renamed.html").isFile());
+        assertTrue(new File(output, "images/old.png").isFile());
+        String manifest =
+                FileUtils.fileRead(new File(ctxt.getStateDirectory(output), DeploymentManifest.MANIFEST_NAME), "UTF-8");
+        assertTrue(manifest.contains("\n    \"extra.css\",\n"), manifest);
+        assertTrue(manifest.contains("\n    \"images/old.png\",\n"), manifest);
+
+        // rename a source and remove a resource
+        FileUtils.rename(new File(siteDirectory, "apt/sub/renamed.apt"), new File(siteDirectory, "apt/new.apt"));
+        FileUtils.forceDelete(new File(siteDirectory, "resources/images/old.png"));
+        FileUtils.fileWrite(new File(siteDirectory, "resources/extra.css"), "UTF-8", "a { color: blue; }");
+        ctxt = getPruneSiteRenderingContext();
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        siteRenderer.copyResources(ctxt, output);
+        assertTrue(new File(output, "sub/renamed.html").isFile());
+        siteRenderer.pruneStaleOutput(ctxt, output);
+
+        assertTrue(new File(output, "new.html").isFile());
+        assertFalse(new File(output, "sub").exists());
+        assertFalse(new File(output, "images/old.png").exists());
+        assertTrue(new File(output, "apt.html").isFile());
+        assertTrue(new File(output, "css/site.css").isFile());
+        assertTrue(foreign.isFile());
+        manifest =
+                FileUtils.fileRead(new File(ctxt.getStateDirectory(output), DeploymentManifest.MANIFEST_NAME), "UTF-8");
+        assertTrue(manifest.contains("\"changed\": [\n    \"extra.css\"\n  ]"), manifest);
+        assertTrue(
+                manifest.contains("\"deleted\": [\n    \"images/old.png\",\n    \"sub/renamed.html\"\n  ]"), manifest);
+
+        // created css/site.css is not pruned on next build
+        ctxt = getPruneSiteRenderingContext();
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        siteRenderer.copyResources(ctxt, output);
+        siteRenderer.pruneStaleOutput(ctxt, output);
+        assertTrue(new File(output, "css/site.css").isFile());
+
+        // without any rendering, documents are not pruned
+        siteRenderer.pruneStaleOutput(getPruneSiteRenderingContext(), output);
+        assertTrue(new File(output, "new.html").isFile());
+    }
+
+    @Test
+    public void testPruneStaleOutputOfSeveralRenderings() throws Exception {
+        File siteDirectory = getTestFile("target/prune-site");
+        File output = getTestFile("target/output-prune");
+        FileUtils.deleteDirectory(siteDirectory);
+        FileUtils.deleteDirectory(output);
+        FileUtils.deleteDirectory(getDefaultStateDirectory(output));
+        FileUtils.copyDirectoryStructure(getTestFile("src/test/resources/site/apt"), new File(siteDirectory, "apt"));
+        FileUtils.mkdir(new File(siteDirectory, "apt/sub").getPath());
+        FileUtils.fileWrite(new File(siteDirectory, "apt/sub/first.apt"), "UTF-8", " -----\n First\n -----\n");
+        FileUtils.fileWrite(new File(siteDirectory, "apt/sub/second.apt"), "UTF-8", " -----\n Second\n -----\n");
+
+        // render the documents in two batches, like documents and reports
+        for (int build = 0; build < 2; build++) {
+            SiteRenderingContext ctxt = getPruneSiteRenderingContext();
+            renderInTwoBatches(ctxt, output);
+            siteRenderer.pruneStaleOutput(ctxt, output);
+            assertTrue(new File(output, "sub/first.html").isFile());
+            assertTrue(new File(output, "sub/second.html").isFile());
+            assertTrue(new File(output, "apt.html").isFile());
+        }
+
+        // a document of the first batch is stale only once every batch is rendered
+        FileUtils.forceDelete(new File(siteDirectory, "apt/sub/first.apt"));
+        SiteRenderingContext ctxt = getPruneSiteRenderingContext();
+        renderInTwoBatches(ctxt, output);
+        siteRenderer.pruneStaleOutput(ctxt, output);
+        assertFalse(new File(output, "sub/first.html").exists());
+        assertTrue(new File(output, "sub/second.html").isFile());
+        assertTrue(new File(output, "apt.html").isFile());
+    }
+
+    private SiteRenderingContext getPruneSiteRenderingContext() throws Exception {
+        SiteModel siteModel =
+                new SiteXpp3Reader().read(new FileInputStream(getTestFile("src/test/resources/site/site.xml")));
+        SiteRenderingContext ctxt = getSiteRenderingContext(siteModel, "target/prune-site", false);
+        ctxt.setRootDirectory(getTestFile(""));
+        ctxt.setRenderManifest(true);
+        ctxt.setPruneStaleOutput(true);
+        ctxt.setWriteIfChanged(true);
+        return ctxt;
+    }
+
+    /**
+     * Render the documents of the sub directory, then the others, with separate calls.
+     */
+    private void renderInTwoBatches(SiteRenderingContext ctxt, File output) throws Exception {
+        Map<Boolean, List<DocumentRenderer>> batches = siteRenderer.locateDocumentFiles(ctxt).values().stream()
+                .collect(Collectors.partitioningBy(
+                        docRenderer -> docRenderer.getOutputName().startsWith("sub/")));
+        siteRenderer.render(batches.get(true), ctxt, output);
+        siteRenderer.render(batches.get(false), ctxt, output);
+    }
+
+    @Test
+    public void testPrecompress() throws Exception {
+        File siteDirectory = getTestFile("target/precompress-site");
+        File output = getTestFile("target/output-precompress");
+        FileUtils.deleteDirectory(siteDirectory);
+        FileUtils.deleteDirectory(output);
+        FileUtils.copyDirectoryStructure(getTestFile("src/test/resources/site/apt"), new File(siteDirectory, "apt"));
+        FileUtils.mkdir(new File(siteDirectory, "resources/images").getPath());
+        FileUtils.fileWrite(new File(siteDirectory, "resources/extra.css"), "UTF-8", "body { color: black; }");
+        FileUtils.fileWrite(new File(siteDirectory, "resources/images/logo.png"), "UTF-8", "png");
+
+        SiteModel siteModel =
+                new SiteXpp3Reader().read(new FileInputStream(getTestFile("src/test/resources/site/site.xml")));
+        SiteRenderingContext ctxt = getSiteRenderingContext(siteModel, "target/precompress-site", false);
+        ctxt.setRootDirectory(getTestFile(""));
+        ctxt.setPrecompress(true);
+        ctxt.setPrecompressThreshold(0);
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        siteRenderer.copyResources(ctxt, output);
+
+        File apt = new File(output, "apt.html");
+        assertEquals(FileUtils.fileRead(apt, "UTF-8"), gunzip(new File(output, "apt.html.gz")));
+        assertEquals("body { color: black; }", gunzip(new File(output, "extra.css.gz")));
+        assertFalse(new File(output, "images/logo.png.gz").exists());
+
+        // sidecars of regenerated files smaller than the threshold are removed
+        apt.setLastModified(1_000_000_000_000L);
+        ctxt.setPrecompressThreshold(1024 * 1024);
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        siteRenderer.copyResources(ctxt, output);
+        assertFalse(new File(output, "apt.html.gz").exists());
+        assertFalse(new File(output, "extra.css.gz").exists());
+
+        // pages buffered for write-if-changed get their sidecar too, even when left unchanged
+        ctxt.setPrecompressThreshold(0);
+        ctxt.setWriteIfChanged(true);
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+        assertEquals(FileUtils.fileRead(apt, "UTF-8"), gunzip(new File(output, "apt.html.gz")));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testCopyDirectoryOverride() throws Exception {
+        File siteDirectory = getTestFile("target/copy-directory-site");
+        File output = getTestFile("target/output-copy-directory");
+        FileUtils.deleteDirectory(siteDirectory);
+        FileUtils.deleteDirectory(output);
+        FileUtils.copyDirectoryStructure(getTestFile("src/test/resources/site/apt"), new File(siteDirectory, "apt"));
+        File resourcesDirectory = new File(siteDirectory, "resources");
+        FileUtils.mkdir(resourcesDirectory.getPath());
+        FileUtils.fileWrite(new File(resourcesDirectory, "extra.css"), "UTF-8", "body { color: black; }");
+
+        SiteModel siteModel =
+                new SiteXpp3Reader().read(new FileInputStream(getTestFile("src/test/resources/site/site.xml")));
+        SiteRenderingContext ctxt = getSiteRenderingContext(siteModel, "target/copy-directory-site", false);
+
+        // a subclass overriding copyDirectory() still copies site resources directories
+        DefaultSiteRenderer renderer = spy((DefaultSiteRenderer) siteRenderer);
+        renderer.copyResources(ctxt, output);
+        verify(renderer).copyDirectory(resourcesDirectory, output);
+        assertTrue(new File(output, "extra.css").isFile());
+        assertTrue(new File(output, "css/site.css").isFile());
+    }
+
+    /**
+     * Replace parsers cached by a renderer with spies, until the renderer is released.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Parser> spyParsers(SiteRenderer siteRenderer, Collection<String> parserIds) throws Exception {
+        Map<String, Parser> parsers =
+                (Map<String, Parser>) ReflectionUtils.getValueIncludingSuperclasses("parsers", siteRenderer);
+        Doxia doxia = container.lookup(Doxia.class);
+        Map<String, Parser> spies = new HashMap<>();
+        for (String parserId : parserIds) {
+            Parser parserSpy = spy(doxia.getParser(parserId));
+            parsers.put(parserId, parserSpy);
+            spies.put(parserId, parserSpy);
+        }
+        return spies;
+    }
+
+    private static String gunzip(File file) throws IOException {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    public void testWriteIfChanged() throws Exception {
+        File siteDirectory = getTestFile("target/write-if-changed-site");
+        File output = getTestFile("target/output-write-if-changed");
+        FileUtils.deleteDirectory(siteDirectory);
+        FileUtils.deleteDirectory(output);
+        FileUtils.deleteDirectory(getDefaultStateDirectory(output));
+        FileUtils.copyDirectoryStructure(getTestFile("src/test/resources/site/apt"), new File(siteDirectory, "apt"));
+
+        SiteModel siteModel =
+                new SiteXpp3Reader().read(new FileInputStream(getTestFile("src/test/resources/site/site.xml")));
+
+        // documents rendered in two calls, like documents then reports
+        SiteRenderingContext ctxt = getSiteRenderingContext(siteModel, "target/write-if-changed-site", false);
+        ctxt.setRootDirectory(getTestFile(""));
+        ctxt.setWriteIfChanged(true);
+        Map<String, DocumentRenderer> documents = siteRenderer.locateDocumentFiles(ctxt);
+        siteRenderer.render(Collections.singletonList(documents.remove("apt.html")), ctxt, output);
+        siteRenderer.render(documents.values(), ctxt, output);
+
+        File deploymentManifest = new File(ctxt.getStateDirectory(output), DeploymentManifest.MANIFEST_NAME);
+        assertFalse(new File(output, DeploymentManifest.MANIFEST_NAME).exists());
+        String manifest = FileUtils.fileRead(deploymentManifest, "UTF-8");
+        assertTrue(manifest.contains("\"unchangedCount\": 0"), manifest);
+        assertTrue(manifest.contains("\"apt.html\""), manifest);
+        assertTrue(manifest.contains("\"cdc.html\""), manifest);
+
+        // next build: touched sources are not rendered again, a changed source is
+        File apt = new File(output, "apt.html");
+        long lastModified = 1_000_000_000_000L;
+        apt.setLastModified(lastModified);
+        new File(siteDirectory, "apt/apt.apt").setLastModified(System.currentTimeMillis());
+        siteModel.setLastModified(System.currentTimeMillis());
+        File cdcSource = new File(siteDirectory, "apt/cdc.apt");
+        FileUtils.fileAppend(cdcSource.getPath(), "UTF-8", "\n Appended paragraph.\n");
+        ctxt = getSiteRenderingContext(siteModel, "target/write-if-changed-site", false);
+        ctxt.setRootDirectory(getTestFile(""));
+        ctxt.setWriteIfChanged(true);
+        siteRenderer.render(siteRenderer.locateDocumentFiles(ctxt).values(), ctxt, output);
+
+        assertEquals(lastModified / 1000, apt.lastModified() / 1000);
+        assertTrue(FileUtils.fileRead(new File(output, "cdc.html"), "UTF-8").contains("Appended paragraph."));
+        manifest = FileUtils.fileRead(deploymentManifest, "UTF-8");
+        assertFalse(manifest.contains("\"apt.html\""), manifest);
+        assertFalse(manifest.contains("\"unchangedCount\": 0"), manifest);
+        assertTrue(manifest.contains("\"changed\": [\n    \"cdc.html\"\n  ]"), manifest);
+        assertTrue(manifest.contains("\"added\": []"), manifest);
+    }
+
+    @Test
+    public void testRenderReport() throws Exception {
+        File output = getTestFile("target/output-report");
+        FileUtils.deleteDirectory(output);
+
+        SiteModel siteModel =
+                new SiteXpp3Reader().read(new FileInputStream(getTestFile("src/test/resources/site/site.xml")));
+
+        SiteRenderingContext ctxt = getSiteRenderingContext(siteModel, "src/test/resources/site", false);
+        ctxt.setRootDirectory(getTestFile(""));
+        ctxt.setRenderReport(true);
+        Map<String, DocumentRenderer> documents = siteRenderer.locateDocumentFiles(ctxt);
+        siteRenderer.render(documents.values(), ctxt, output);
+
+        assertFalse(new File(output, RenderReport.REPORT_NAME).exists());
+        String report = FileUtils.fileRead(new File(ctxt.getStateDirectory(output), RenderReport.REPORT_NAME), "UTF-8");
+        assertTrue(report.contains("\"discoverMillis\": "));
+        assertTrue(report.contains("\n  \"documentCount\": " + documents.size() + ",\n"));
+        assertTrue(report.contains("\n    \"apt\": {\n"));
+        assertTrue(report.contains("\n    \"xdoc\": {\n"));
+        File apt = new File(output, "apt.html");
+        assertTrue(report.contains("{\"outputName\": \"apt.html\", \"source\": \"src/test/resources/site/apt/apt.apt\","
+                + " \"parserId\": \"apt\", \"bytesIn\": "
+                + getTestFile("src/test/resources/site/apt/apt.apt").length() + ", \"bytesOut\": " + apt.length()
+                + ", \"totalMillis\": "));
+
+        // slowest documents first
+        Matcher matcher = Pattern.compile("\\{\"outputName\": .*\"totalMillis\": ([0-9.]+)")
+                .matcher(report);
+        double previous = Double.MAX_VALUE;
+        int count = 0;
+        while (matcher.find()) {
+            double totalMillis = Double.parseDouble(matcher.group(1));
+            assertTrue(totalMillis <= previous);
+            previous = totalMillis;
+            count++;
+        }
+        assertEquals(documents.size(), count);
+    }
+
+    @Test
+    public void testRenderReportOfSeveralRenderings() throws Exception {
+        File output = getTestFile("target/output-report-batches");
+        FileUtils.deleteDirectory(output);
+
+        SiteModel siteModel =
+                new SiteXpp3Reader().read(new FileInputStream(getTestFile("src/test/resources/site/site.xml")));
+
+        SiteRenderingContext ctxt = getSiteRenderingContext(siteModel, "src/test/resources/site", false);
+        ctxt.setRootDirectory(getTestFile(""));
+        ctxt.setRenderReport(true);
+        FileUtils.deleteDirectory(ctxt.getStateDirectory(output));
+
+        // documents rendered in two calls, like documents then reports
+        Map<Boolean, List<DocumentRenderer>> batches = siteRenderer.locateDocumentFiles(ctxt).values().stream()
+                .collect(Collectors.partitioningBy(docRenderer ->
+                        "apt".equals(docRenderer.getRenderingContext().getParserId())));
+        siteRenderer.render(batches.get(true), ctxt, output);
+        siteRenderer.render(batches.get(false), ctxt, output);
+
+        String report = FileUtils.fileRead(new File(ctxt.getStateDirectory(output), RenderReport.REPORT_NAME), "UTF-8");
+        int documentCount = batches.get(true).size() + batches.get(false).size();
+        assertTrue(report.contains("\n  \"documentCount\": " + documentCount + ",\n"), report);
+        assertTrue(report.contains("\n    \"apt\": {\n"));
+        assertTrue(report.contains("\n    \"xdoc\": {\n"));
+    }
+
     @Test
     public void testExternalReport() throws Exception {
         DocumentRenderer docRenderer = mock(DocumentRenderer.class);
@@ -320,6 +909,288 @@ public class DefaultSiteRendererTest {
         assertEquals(expectedResult, renderResult);
     }
 
+    @Test
+    public void testToolManagerReuse() throws Exception {
+        DefaultSiteRenderer r = (DefaultSiteRenderer) siteRenderer;
+        SiteRenderingContext siteRenderingContext = new SiteRenderingContext();
+        siteRenderingContext.setSiteModel(new SiteModel());
+
+        Context first = r.createToolManagedVelocityContext(siteRenderingContext);
+        Context second = r.createToolManagedVelocityContext(siteRenderingContext);
+
+        // application scoped tools are shared, request scoped ones are not
+        assertSame(first.get("esc"), second.get("esc"));
+        assertNotSame(first.get("context"), second.get("context"));
+
+        siteRenderingContext.setLocale(Locale.FRENCH);
+        assertNotSame(
+                first.get("esc"),
+                r.createToolManagedVelocityContext(siteRenderingContext).get("esc"));
+    }
+
+    @Test
+    public void testLayeredVelocityContext() throws Exception {
+        DefaultSiteRenderer r = (DefaultSiteRenderer) siteRenderer;
+        SiteRenderingContext siteRenderingContext = new SiteRenderingContext();
+        siteRenderingContext.setSiteModel(new SiteModel());
+        siteRenderingContext.setTemplateProperties(Collections.singletonMap("currentFileName", "overridden"));
+
+        Context first = r.createDocumentVelocityContext(
+                new DocumentRenderingContext(new File(""), "first", "generator"), siteRenderingContext);
+        Context second = r.createDocumentVelocityContext(
+                new DocumentRenderingContext(new File(""), "sub/second", "generator"), siteRenderingContext);
+
+        // site-level values are shared, document values are not
+        assertSame(first.get("PathTool"), second.get("PathTool"));
+        assertEquals("first.html", first.get("currentFilePath"));
+        assertEquals("sub/second.html", second.get("currentFilePath"));
+
+        // template properties still override document values
+        assertEquals("overridden", first.get("currentFileName"));
+
+        // values put by a template stay in its document context
+        first.put("site", "local");
+        assertEquals("local", first.get("site"));
+        assertSame(siteRenderingContext.getSiteModel(), second.get("site"));
+        assertTrue(Arrays.asList(second.getKeys()).contains("decoration"));
+    }
+
+    @Test
+    public void testBodyStreamedIntoTemplate() throws Exception {
+        Artifact skin = new DefaultArtifact(
+                "org.group", "artifact", VersionRange.createFromVersion("1.1"), null, "jar", "", null);
+        skin.setFile(minimalSkinJar);
+        SiteRenderingContext siteRenderingContext = siteRenderer.createContextForSkin(
+                skin, Collections.emptyMap(), new SiteModel(), "defaultitle", Locale.ROOT);
+        DocumentRenderingContext context = new DocumentRenderingContext(new File(""), "document.html", "generator");
+        SiteRendererSink sink = spy(new SiteRendererSink(context));
+        sink.paragraph();
+        sink.text("streamed body");
+        sink.paragraph_();
+
+        StringWriter writer = new StringWriter();
+        siteRenderer.mergeDocumentIntoSite(writer, sink, siteRenderingContext);
+
+        String output = writer.toString();
+        assertTrue(output.startsWith("<main id=\"contentBox\">"));
+        assertTrue(output.contains("<p>streamed body</p>"));
+        verify(sink, never()).getBody();
+    }
+
+    @Test
+    public void testBodyStringMethodsInTemplate() throws Exception {
+        File skinFile = getTestFile("target/test-classes/string-body-skin.jar");
+        try (JarOutputStream jarOS = new JarOutputStream(new FileOutputStream(skinFile))) {
+            jarOS.putNextEntry(new ZipEntry("META-INF/maven/site.vm"));
+            jarOS.write(("$bodyContent.replace(\"streamed\", \"replaced\")"
+                            + " #if($bodyContent.contains(\"<p>\"))paragraph#end $bodyContent.indexOf(\"body\")"
+                            + " $bodyContent.toUpperCase() #if($bodyContent.equals($bodyRenderer.toString()))same#end")
+                    .getBytes(StandardCharsets.UTF_8));
+            jarOS.closeEntry();
+        }
+        Artifact skin = new DefaultArtifact(
+                "org.group", "artifact", VersionRange.createFromVersion("1.1"), null, "jar", "", null);
+        skin.setFile(skinFile);
+        SiteRenderingContext siteRenderingContext = siteRenderer.createContextForSkin(
+                skin, Collections.emptyMap(), new SiteModel(), "defaultitle", Locale.ROOT);
+        DocumentRenderingContext context = new DocumentRenderingContext(new File(""), "document.html", "generator");
+        SiteRendererSink sink = new SiteRendererSink(context);
+        sink.paragraph();
+        sink.text("streamed body");
+        sink.paragraph_();
+
+        StringWriter writer = new StringWriter();
+        siteRenderer.mergeDocumentIntoSite(writer, sink, siteRenderingContext);
+
+        assertEquals(
+                "<p>replaced body</p> paragraph 12 <P>STREAMED BODY</P> same",
+                writer.toString().trim());
+    }
+
+    @Test
+    public void testRenderVelocityDocument() throws Exception {
+        File basedir = getTestFile("target/velocity-site/apt");
+        basedir.mkdirs();
+        FileUtils.fileWrite(
+                new File(basedir, "loop.apt.vm"),
+                "UTF-8",
+                " -----\n Loop\n -----\n\n#foreach( $i in [1..2000] )\n Paragraph $i\n\n#end\n");
+        File processedContentOutput = getTestFile("target/velocity-site/processed");
+        FileUtils.deleteDirectory(processedContentOutput);
+
+        Artifact skin = new DefaultArtifact(
+                "org.group", "artifact", VersionRange.createFromVersion("1.1"), null, "jar", "", null);
+        skin.setFile(minimalSkinJar);
+        SiteRenderingContext siteRenderingContext = siteRenderer.createContextForSkin(
+                skin, Collections.emptyMap(), new SiteModel(), "defaultitle", Locale.ROOT);
+        siteRenderingContext.setInputEncoding("UTF-8");
+        siteRenderingContext.setProcessedContentOutput(processedContentOutput);
+        DocumentRenderingContext docRenderingContext =
+                new DocumentRenderingContext(basedir, "apt", "loop.apt.vm", "apt", "apt", false);
+        docRenderingContext.setAttribute("velocity", "true");
+
+        StringWriter writer = new StringWriter();
+        siteRenderer.renderDocument(writer, docRenderingContext, siteRenderingContext);
+
+        // the Velocity output, larger than the pipe, is parsed while merged
+        String output = writer.toString();
+        assertTrue(output.contains("<p>Paragraph 1</p>"));
+        assertTrue(output.contains("<p>Paragraph 2000</p>"));
+
+        String processedContent = FileUtils.fileRead(new File(processedContentOutput, "loop.apt"), "UTF-8");
+        assertTrue(processedContent.startsWith(" -----\n Loop\n -----\n\n Paragraph 1\n\n Paragraph 2\n"));
+        assertTrue(processedContent.endsWith(" Paragraph 2000\n\n"));
+    }
+
+    @Test
+    public void testRenderVelocityDocumentWithVelocityError() throws Exception {
+        File basedir = getTestFile("target/velocity-site/apt");
+        basedir.mkdirs();
+        FileUtils.fileWrite(new File(basedir, "broken.apt.vm"), "UTF-8", " Paragraph\n\n$undefined.method(\n");
+
+        Artifact skin = new DefaultArtifact(
+                "org.group", "artifact", VersionRange.createFromVersion("1.1"), null, "jar", "", null);
+        skin.setFile(minimalSkinJar);
+        SiteRenderingContext siteRenderingContext = siteRenderer.createContextForSkin(
+                skin, Collections.emptyMap(), new SiteModel(), "defaultitle", Locale.ROOT);
+
+        DocumentRenderingContext docRenderingContext =
+                new DocumentRenderingContext(basedir, "apt", "broken.apt.vm", "apt", "apt", false);
+        docRenderingContext.setAttribute("velocity", "true");
+
+        RendererException e = assertThrows(
+                RendererException.class,
+                () -> siteRenderer.renderDocument(new StringWriter(), docRenderingContext, siteRenderingContext));
+        assertEquals("Error parsing apt/broken.apt.vm as a Velocity template", e.getMessage());
+    }
+
+    @Test
+    public void testParserLookupCache() throws Exception {
+        // count the container lookups made while parsing
+        Doxia doxiaSpy = spy(container.lookup(Doxia.class));
+        ParserManager parserManagerSpy = spy(container.lookup(ParserManager.class));
+        ReflectionUtils.setVariableValueInObject(doxiaSpy, "parserManager", parserManagerSpy);
+        SiteRenderer siteRenderer = container.lookup(SiteRenderer.class);
+        ReflectionUtils.setVariableValueInObject(siteRenderer, "doxia", doxiaSpy);
+
+        Artifact skin = new DefaultArtifact(
+                "org.group", "artifact", VersionRange.createFromVersion("1.1"), null, "jar", "", null);
+        skin.setFile(minimalSkinJar);
+        SiteRenderingContext siteRenderingContext = siteRenderer.createContextForSkin(
+                skin, Collections.emptyMap(), new SiteModel(), "defaultitle", Locale.ROOT);
+        File basedir = getTestFile("src/test/resources/site/apt");
+        for (String document : Arrays.asList("apt.apt", "cdc.apt", "interpolation.apt")) {
+            DocumentRenderingContext docRenderingContext =
+                    new DocumentRenderingContext(basedir, "apt", document, "apt", "apt", false);
+            siteRenderer.renderDocument(new StringWriter(), docRenderingContext, siteRenderingContext);
+        }
+
+        verify(parserManagerSpy, times(1)).getParser("apt");
+    }
+
+    @Test
+    public void testSkinArchiveReuse() throws Exception {
+        Artifact skin = new DefaultArtifact(
+                "org.group", "artifact", VersionRange.createFromVersion("1.1"), null, "jar", "", null);
+        skin.setFile(minimalSkinJar);
+
+        SiteRenderingContext first = siteRenderer.createContextForSkin(
+                skin, Collections.emptyMap(), new SiteModel(), "defaultitle", Locale.ROOT);
+        SiteRenderingContext second = siteRenderer.createContextForSkin(
+                skin, Collections.emptyMap(), new SiteModel(), "defaultitle", Locale.FRENCH);
+        assertSame(first.getTemplateClassLoader(), second.getTemplateClassLoader());
+
+        ((DefaultSiteRenderer) siteRenderer).dispose();
+
+        SiteRenderingContext third = siteRenderer.createContextForSkin(
+                skin, Collections.emptyMap(), new SiteModel(), "defaultitle", Locale.ROOT);
+        assertNotSame(first.getTemplateClassLoader(), third.getTemplateClassLoader());
+    }
+
+    @Test
+    public void testCopyResources() throws Exception {
+        File skinFile = getTestFile("target/test-classes/resources-skin.jar");
+        try (JarOutputStream jarOS = new JarOutputStream(new FileOutputStream(skinFile))) {
+            jarOS.putNextEntry(new ZipEntry("META-INF/maven/site.vm"));
+            jarOS.write("$bodyContent".getBytes(StandardCharsets.UTF_8));
+            jarOS.putNextEntry(new ZipEntry("css/maven-base.css"));
+            jarOS.write("/* skin base */".getBytes(StandardCharsets.UTF_8));
+            jarOS.putNextEntry(new ZipEntry("css/site.css"));
+            jarOS.write("/* skin site */".getBytes(StandardCharsets.UTF_8));
+        }
+        Artifact skin = new DefaultArtifact(
+                "org.group", "resources-skin", VersionRange.createFromVersion("1.0"), null, "jar", "", null);
+        skin.setFile(skinFile);
+
+        File siteDirectory = getTestFile("target/copy-site");
+        FileUtils.deleteDirectory(siteDirectory);
+        new File(siteDirectory, "resources/css").mkdirs();
+        new File(siteDirectory, "resources/images").mkdirs();
+        FileUtils.fileWrite(new File(siteDirectory, "resources/css/site.css"), "UTF-8", "/* site */");
+        FileUtils.fileWrite(new File(siteDirectory, "resources/images/logo.txt"), "UTF-8", "logo");
+
+        File output = getTestFile("target/output-resources");
+        FileUtils.deleteDirectory(output);
+
+        SiteRenderingContext context = siteRenderer.createContextForSkin(
+                skin, Collections.emptyMap(), new SiteModel(), "defaultitle", Locale.ROOT);
+        context.addSiteDirectory(siteDirectory);
+        context.setParallelism(2);
+        siteRenderer.copyResources(context, output);
+
+        // site resources override skin ones
+        File siteCss = new File(output, "css/site.css");
+        assertEquals("/* site */", FileUtils.fileRead(siteCss, "UTF-8"));
+        assertEquals("/* skin base */", FileUtils.fileRead(new File(output, "css/maven-base.css"), "UTF-8"));
+        assertEquals("logo", FileUtils.fileRead(new File(output, "images/logo.txt"), "UTF-8"));
+
+        // unchanged resources are not copied again, changed ones are
+        File logo = new File(output, "images/logo.txt");
+        File base = new File(output, "css/maven-base.css");
+        assertTrue(siteCss.setLastModified(1000000000000L));
+        assertTrue(logo.setLastModified(1000000000000L));
+        FileUtils.fileWrite(base, "UTF-8", "/* edited */");
+        assertTrue(base.setLastModified(1000000000000L));
+
+        siteRenderer.copyResources(context, output);
+
+        assertEquals(1000000000000L, siteCss.lastModified());
+        assertEquals(1000000000000L, logo.lastModified());
+        assertEquals("/* skin base */", FileUtils.fileRead(base, "UTF-8"));
+    }
+
+    @Test
+    public void testSiteTemplateCache() throws Exception {
+        Artifact skin = new DefaultArtifact(
+                "org.group", "cached-skin", VersionRange.createFromVersion("1.0"), null, "jar", "", null);
+        skin.setFile(minimalSkinJar);
+
+        SiteTemplateCache cache = ((DefaultSiteRenderer) siteRenderer).getTemplateCache();
+        long misses = cache.getMissCount();
+        long hits = cache.getHitCount();
+
+        for (Locale locale : new Locale[] {Locale.ROOT, Locale.FRENCH, Locale.GERMAN}) {
+            SiteRenderingContext siteRenderingContext = siteRenderer.createContextForSkin(
+                    skin, Collections.emptyMap(), new SiteModel(), "defaultitle", locale);
+            DocumentRenderingContext context = new DocumentRenderingContext(new File(""), "document.html", "generator");
+            StringWriter writer = new StringWriter();
+            siteRenderer.mergeDocumentIntoSite(writer, new SiteRendererSink(context), siteRenderingContext);
+            assertTrue(writer.toString().startsWith("<main id=\"contentBox\">"));
+        }
+
+        assertEquals(misses + 1, cache.getMissCount());
+        assertEquals(hits + 2, cache.getHitCount());
+
+        Map<?, ?> toolManagers =
+                (Map<?, ?>) ReflectionUtils.getValueIncludingSuperclasses("toolManagers", siteRenderer);
+        assertFalse(toolManagers.isEmpty());
+
+        // templates of closed skin archives and tool managers are not kept
+        ((DefaultSiteRenderer) siteRenderer).dispose();
+        assertEquals(0, cache.size());
+        assertTrue(toolManagers.isEmpty());
+    }
+
     @Test
     public void testMatchVersion() throws Exception {
         DefaultSiteRenderer r = (DefaultSiteRenderer) siteRenderer;
@@ -339,6 +1210,34 @@ public class DefaultSiteRendererTest {
         assertEquals(expectedOutputFiles, outputFiles);
     }
 
+    @Test
+    public void testLocateDocumentFilesWithModuleExcludes() throws IOException, RendererException {
+        SiteRenderingContext context = new SiteRenderingContext();
+        File sourceDirectory = getTestFile("src/test/resources/site");
+        context.setRootDirectory(sourceDirectory);
+        context.addSiteDirectory(new SiteDirectory(sourceDirectory, true));
+        context.setModuleExcludes(Collections.singletonMap("apt", "cdc.apt,extension.*"));
+        Map<String, DocumentRenderer> documents = siteRenderer.locateDocumentFiles(context);
+
+        Set<String> expectedOutputFiles = new HashSet<>(Arrays.asList(
+                "apt.html",
+                "interpolation.html",
+                "faq.html",
+                "attributes.html",
+                "head.html",
+                "javascript.html",
+                "macro.html",
+                "multipleblock.html",
+                "nestedItems.html"));
+        assertEquals(expectedOutputFiles, documents.keySet());
+
+        // source attributes are collected while locating documents
+        DocumentRenderingContext docRenderingContext = documents.get("apt.html").getRenderingContext();
+        File source = new File(sourceDirectory, "apt/apt.apt");
+        assertEquals(source.lastModified(), docRenderingContext.getSourceLastModified());
+        assertEquals(source.length(), docRenderingContext.getSourceSize());
+    }
+
     @Test
     public void testLocateDocumentFilesWithNameClashes() throws IOException, RendererException {
         SiteRenderingContext context = new SiteRenderingContext();
@@ -349,6 +1248,57 @@ public class DefaultSiteRendererTest {
         assertThrows(RendererException.class, () -> siteRenderer.locateDocumentFiles(context));
     }
 
+    @Test
+    public void testLocateDocumentFilesWithCaseInsensitiveNameClashes() throws IOException, RendererException {
+        File siteA = getTestFile("target/case-site-a");
+        File siteB = getTestFile("target/case-site-b");
+        FileUtils.deleteDirectory(siteA);
+        FileUtils.deleteDirectory(siteB);
+        new File(siteA, "apt").mkdirs();
+        new File(siteB, "apt").mkdirs();
+        FileUtils.fileWrite(new File(siteA, "apt/index.apt"), "UTF-8", "content");
+        FileUtils.fileWrite(new File(siteB, "apt/INDEX.apt"), "UTF-8", "content");
+
+        SiteRenderingContext context = new SiteRenderingContext();
+        context.setRootDirectory(getTestFile("target"));
+        context.addSiteDirectory(new SiteDirectory(siteA, true));
+        context.addSiteDirectory(new SiteDirectory(siteB, true));
+
+        if (Os.isFamily(Os.FAMILY_WINDOWS)) {
+            assertThrows(RendererException.class, () -> siteRenderer.locateDocumentFiles(context));
+        } else {
+            // only a warning on case-sensitive file systems
+            assertEquals(
+                    new HashSet<>(Arrays.asList("index.html", "INDEX.html")),
+                    siteRenderer.locateDocumentFiles(context).keySet());
+        }
+    }
+
+    @Test
+    public void testLocateDocumentFilesWithDefaultExcludes() throws IOException, RendererException {
+        File siteDirectory = getTestFile("target/default-excludes-site");
+        FileUtils.deleteDirectory(siteDirectory);
+        new File(siteDirectory, "apt/CVS").mkdirs();
+        FileUtils.fileWrite(new File(siteDirectory, "apt/index.apt"), "UTF-8", "content");
+        FileUtils.fileWrite(new File(siteDirectory, "apt/.#foo.apt"), "UTF-8", "lock");
+        FileUtils.fileWrite(new File(siteDirectory, "apt/index.apt~"), "UTF-8", "backup");
+        FileUtils.fileWrite(new File(siteDirectory, "apt/CVS/x.apt"), "UTF-8", "scm");
+
+        SiteRenderingContext context = new SiteRenderingContext();
+        context.setRootDirectory(getTestFile("target"));
+        context.addSiteDirectory(new SiteDirectory(siteDirectory, true));
+        assertEquals(
+                Collections.singleton("index.html"),
+                siteRenderer.locateDocumentFiles(context).keySet());
+    }
+
+    @Test
+    public void testFoldCase() {
+        assertEquals(DefaultSiteRenderer.foldCase("Index.HTML"), DefaultSiteRenderer.foldCase("index.html"));
+        assertEquals(DefaultSiteRenderer.foldCase("\u0130"), DefaultSiteRenderer.foldCase("i"));
+        assertFalse(DefaultSiteRenderer.foldCase("index.html").equals(DefaultSiteRenderer.foldCase("index.htm")));
+    }
+
     @Test
     public void testLocateDocumentFilesWithNameClashesInSkippingDuplicatesDirectory()
             throws IOException, RendererException {
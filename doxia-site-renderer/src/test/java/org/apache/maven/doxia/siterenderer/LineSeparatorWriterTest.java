@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LineSeparatorWriterTest {
+    private static String normalize(String lineSeparator, String... chunks) throws Exception {
+        StringWriter sw = new StringWriter();
+        try (Writer writer = new LineSeparatorWriter(sw, lineSeparator)) {
+            for (String chunk : chunks) {
+                writer.write(chunk);
+            }
+        }
+        return sw.toString();
+    }
+
+    @Test
+    public void testLineSeparators() throws Exception {
+        assertEquals("a\r\nb\r\nc", normalize("\r\n", "a\nb\r\nc"));
+        assertEquals("a\nb\nc", normalize("\n", "a\nb\r\nc"));
+        assertEquals("a\rb\n", normalize("\n", "a\rb\n"));
+        assertEquals("no line break", normalize("\n", "no line break"));
+    }
+
+    @Test
+    public void testLineBreakAcrossChunks() throws Exception {
+        assertEquals("a\nb", normalize("\n", "a\r", "\nb"));
+        assertEquals("a\r\n\r\nb", normalize("\r\n", "a\r", "", "\n\n", "b"));
+        assertEquals("a\rb", normalize("\n", "a\r", "b"));
+        assertEquals("a\r", normalize("\n", "a\r"));
+        assertEquals("a\r\r\n", normalize("\r\n", "a\r", "\r", "\n"));
+    }
+}
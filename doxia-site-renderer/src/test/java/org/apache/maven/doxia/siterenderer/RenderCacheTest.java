@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.apache.maven.doxia.module.apt.AptParser;
+import org.apache.maven.doxia.parser.Parser;
+import org.apache.maven.doxia.siterenderer.sink.SiteRendererSink;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.codehaus.plexus.testing.PlexusExtension.getTestFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class RenderCacheTest {
+    private static final File SITE = getTestFile("src/test/resources/site/apt");
+
+    private static final Parser PARSER = new AptParser();
+
+    private static DocumentRenderingContext getRenderingContext(String document) {
+        return new DocumentRenderingContext(SITE, "apt", document, "apt", "apt", false);
+    }
+
+    private static SiteRenderingContext getSiteRenderingContext(Locale locale) {
+        SiteRenderingContext siteRenderingContext = new SiteRenderingContext();
+        siteRenderingContext.setLocale(locale);
+        return siteRenderingContext;
+    }
+
+    private static DocumentContent getContent(DocumentRenderingContext docRenderingContext, String text) {
+        SiteRendererSink sink = new SiteRendererSink(docRenderingContext);
+        sink.head();
+        sink.title();
+        sink.text("Title");
+        sink.title_();
+        sink.author();
+        sink.text("Author");
+        sink.author_();
+        sink.head_();
+        sink.body();
+        sink.text(text);
+        sink.body_();
+        sink.close();
+        return sink;
+    }
+
+    @Test
+    public void testGetPut() throws Exception {
+        File directory = getTestFile("target/render-cache-test");
+        FileUtils.deleteDirectory(directory);
+        RenderCache cache = new RenderCache(directory, SiteRenderingContext.DEFAULT_RENDER_CACHE_SIZE, "1.0");
+
+        DocumentRenderingContext docRenderingContext = getRenderingContext("cdc.apt");
+        String key = cache.getKey(docRenderingContext, getSiteRenderingContext(Locale.ROOT), PARSER);
+        assertNotEquals(key, cache.getKey(docRenderingContext, getSiteRenderingContext(Locale.FRENCH), PARSER));
+        assertNotEquals(
+                key,
+                cache.getKey(getRenderingContext("interpolation.apt"), getSiteRenderingContext(Locale.ROOT), PARSER));
+        SiteRenderingContext validating = getSiteRenderingContext(Locale.ROOT);
+        validating.setValidate(true);
+        assertNotEquals(key, cache.getKey(docRenderingContext, validating, PARSER));
+        assertNotEquals(
+                key,
+                new RenderCache(directory, 0, "2.0")
+                        .getKey(docRenderingContext, getSiteRenderingContext(Locale.ROOT), PARSER));
+        assertNotEquals(
+                key, cache.getKey(docRenderingContext, getSiteRenderingContext(Locale.ROOT), mock(Parser.class)));
+        assertNull(cache.get(key, docRenderingContext));
+
+        cache.put(key, getContent(docRenderingContext, "body"));
+        DocumentContent content = cache.get(key, docRenderingContext);
+        assertNotNull(content);
+        assertEquals("Title", content.getTitle());
+        assertEquals("Author", content.getAuthors().get(0));
+        assertEquals("body", content.getBody());
+    }
+
+    @Test
+    public void testExternalMacroIsNotCached() throws Exception {
+        RenderCache cache = new RenderCache(
+                getTestFile("target/render-cache-macro"), SiteRenderingContext.DEFAULT_RENDER_CACHE_SIZE, "1.0");
+
+        // apt.apt includes a snippet
+        assertNull(cache.getKey(getRenderingContext("apt.apt"), getSiteRenderingContext(Locale.ROOT), PARSER));
+
+        assertFalse(RenderCache.usesExternalMacro(bytes("%{toc}\n%{echo|param=value}")));
+        assertFalse(RenderCache.usesExternalMacro(bytes("<macro name=\"toc\"/>")));
+        assertTrue(RenderCache.usesExternalMacro(bytes("%{snippet|id=x|file=x.java}")));
+        assertTrue(RenderCache.usesExternalMacro(bytes("<macro name='snippet'>")));
+        assertTrue(RenderCache.usesExternalMacro(bytes("<!-- MACRO{ssi|file=x} -->")));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCorruptedEntryIsMiss() throws Exception {
+        File directory = getTestFile("target/render-cache-corrupted");
+        FileUtils.deleteDirectory(directory);
+        RenderCache cache = new RenderCache(directory, SiteRenderingContext.DEFAULT_RENDER_CACHE_SIZE, "1.0");
+
+        DocumentRenderingContext docRenderingContext = getRenderingContext("cdc.apt");
+        String key = cache.getKey(docRenderingContext, getSiteRenderingContext(Locale.ROOT), PARSER);
+        cache.put(key, getContent(docRenderingContext, "body"));
+
+        // format version followed by a huge title length
+        File entry = new File(new File(directory, key.substring(0, 2)), key + ".doxia");
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(entry))) {
+            out.writeInt(1);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+        assertNull(cache.get(key, docRenderingContext));
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() throws Exception {
+        File directory = getTestFile("target/render-cache-eviction");
+        FileUtils.deleteDirectory(directory);
+        RenderCache cache = new RenderCache(directory, Long.MAX_VALUE, "1.0");
+
+        String[] documents = {"cdc.apt", "extension.apt.not.at.end.apt", "interpolation.apt"};
+        String[] keys = new String[documents.length];
+        for (int i = 0; i < documents.length; i++) {
+            DocumentRenderingContext docRenderingContext = getRenderingContext(documents[i]);
+            keys[i] = cache.getKey(docRenderingContext, getSiteRenderingContext(Locale.ROOT), PARSER);
+            cache.put(keys[i], getContent(docRenderingContext, "body"));
+        }
+        long entrySize = FileUtils.getFileNames(directory, "**/*.doxia", null, true).stream()
+                .mapToLong(name -> new File(name).length())
+                .max()
+                .getAsLong();
+
+        // first entry is the least recently written, but the most recently used
+        File[] entries = new File[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            entries[i] = new File(new File(directory, keys[i].substring(0, 2)), keys[i] + ".doxia");
+            entries[i].setLastModified(System.currentTimeMillis() - (keys.length - i) * 60_000L);
+        }
+        assertNotNull(cache.get(keys[0], getRenderingContext(documents[0])));
+
+        RenderCache bounded = new RenderCache(directory, 2 * entrySize, "1.0");
+        bounded.put(keys[2], getContent(getRenderingContext(documents[2]), "body"));
+        bounded.evict();
+
+        assertNotNull(cache.get(keys[0], getRenderingContext(documents[0])));
+        assertNull(cache.get(keys[1], getRenderingContext(documents[1])));
+        assertNotNull(cache.get(keys[2], getRenderingContext(documents[2])));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.doxia.site.SiteModel;
+import org.apache.maven.doxia.siterenderer.SiteRenderingContext.SiteDirectory;
+import org.codehaus.plexus.testing.PlexusTest;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.codehaus.plexus.testing.PlexusExtension.getTestFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Scale test of the site rendering with a synthetic site, asserting wall-time and retained heap ceilings.
+ * The site size and ceilings default to values suitable for every build, and can be raised with system properties:
+ * for example <code>-Ddoxia.scale.pages=10000 -Ddoxia.scale.renderMillis=600000</code>.
+ */
+@PlexusTest
+public class SiteRendererScaleTest {
+    private static final int PAGES = Integer.getInteger("doxia.scale.pages", 500);
+
+    private static final long LOCATE_MILLIS = Long.getLong("doxia.scale.locateMillis", 10_000);
+
+    private static final long RENDER_MILLIS = Long.getLong("doxia.scale.renderMillis", 120_000);
+
+    private static final long HEAP_MB = Long.getLong("doxia.scale.heapMB", 64);
+
+    @Inject
+    private SiteRenderer siteRenderer;
+
+    @Test
+    public void testLocateAndRenderLargeSite() throws Exception {
+        File basedir = getTestFile("target/scale-site");
+        FileUtils.deleteDirectory(basedir);
+        File siteDirectory = new File(basedir, "src/site");
+
+        SyntheticSiteGenerator generator = new SyntheticSiteGenerator()
+                .pages(PAGES)
+                .velocityShare(0.1)
+                .depth(3)
+                .menuSize(20)
+                .locales(Locale.ENGLISH, Locale.FRENCH);
+        SiteModel siteModel = generator.generate(siteDirectory);
+        Artifact skin = newSkin(new File(basedir, "skin.jar"));
+
+        for (Locale locale : generator.getLocales()) {
+            SiteRenderingContext context = siteRenderer.createContextForSkin(
+                    skin, Collections.emptyMap(), siteModel, "Synthetic site", locale);
+            context.addSiteDirectory(new SiteDirectory(generator.getLocaleDirectory(siteDirectory, locale), true));
+            context.setRootDirectory(basedir);
+
+            long heap = usedHeap();
+            long start = System.nanoTime();
+            Map<String, DocumentRenderer> documents = siteRenderer.locateDocumentFiles(context);
+            assertCeiling("locateDocumentFiles", start, LOCATE_MILLIS, heap);
+            assertEquals(PAGES, documents.size());
+
+            File outputDirectory = new File(basedir, "target/site/" + locale);
+            heap = usedHeap();
+            start = System.nanoTime();
+            siteRenderer.render(documents.values(), context, outputDirectory);
+            assertCeiling("render", start, RENDER_MILLIS, heap);
+
+            try (Stream<Path> files = Files.walk(outputDirectory.toPath())) {
+                assertEquals(
+                        PAGES, files.filter(f -> f.toString().endsWith(".html")).count());
+            }
+        }
+    }
+
+    private static Artifact newSkin(File skinJar) throws IOException {
+        try (OutputStream out = Files.newOutputStream(skinJar.toPath());
+                JarOutputStream jar = new JarOutputStream(out)) {
+            jar.putNextEntry(new ZipEntry("META-INF/maven/site.vm"));
+            jar.write(
+                    "<html><body><nav>#foreach( $menu in $site.body.menus )$menu.name #end</nav>$bodyRenderer</body></html>"
+                            .getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+
+        Artifact skin = new DefaultArtifact(
+                "org.group", "artifact", VersionRange.createFromVersion("1.1"), null, "jar", "", null);
+        skin.setFile(skinJar);
+        return skin;
+    }
+
+    /**
+     * Assert the time spent since the start, and the heap retained since the beginning, are below ceilings.
+     */
+    private static void assertCeiling(String operation, long startNanos, long maxMillis, long heapBefore) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        long retainedMB = (usedHeap() - heapBefore) / (1024 * 1024);
+        assertTrue(
+                millis <= maxMillis,
+                operation + " of " + PAGES + " pages took " + millis + " ms, more than " + maxMillis + " ms");
+        assertTrue(
+                retainedMB <= HEAP_MB,
+                operation + " of " + PAGES + " pages retained " + retainedMB + " MB, more than " + HEAP_MB + " MB");
+    }
+
+    /**
+     * Get the heap used after a garbage collection: only reachable objects are counted.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
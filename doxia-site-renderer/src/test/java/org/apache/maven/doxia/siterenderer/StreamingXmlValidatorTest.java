@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.File;
+import java.io.StringReader;
+
+import org.apache.maven.doxia.parser.ParseException;
+import org.codehaus.plexus.util.IOUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StreamingXmlValidatorTest {
+    private static final File RESOURCE = new File("target/validated.xml");
+
+    private final PipelineExecutor executor = new PipelineExecutor();
+
+    private final StreamingXmlValidator validator = new StreamingXmlValidator(executor);
+
+    @AfterEach
+    public void tearDown() {
+        executor.close();
+    }
+
+    private static String document(String contentModel, String body) {
+        return "<?xml version=\"1.0\"?>\n"
+                + "<!DOCTYPE doc [\n"
+                + "<!ENTITY % HTMLlat1 PUBLIC \"-//W3C//ENTITIES Latin 1 for XHTML//EN\" \"urn:unresolvable\">\n"
+                + "%HTMLlat1;\n"
+                + "<!ENTITY % HTMLsymbol PUBLIC \"-//Unknown//EN\""
+                + " \"https://www.w3.org/TR/xhtml1/DTD/xhtml-symbol.ent\">\n"
+                + "%HTMLsymbol;\n"
+                + "<!ELEMENT doc " + contentModel + ">\n"
+                + "<!ELEMENT p (#PCDATA)>\n"
+                + "]>\n"
+                + "<doc>" + body + "</doc>\n";
+    }
+
+    @Test
+    public void testValidDocumentWithBundledEntities() throws Exception {
+        String content = document("(p*)", "<p>&Alpha;&nbsp;&eacute;</p>");
+
+        ValidatingReader reader = validator.validate(new StringReader(content), RESOURCE, null);
+        try {
+            assertEquals(content, IOUtil.toString(reader));
+            reader.awaitValidation();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testInvalidDocument() throws Exception {
+        String content = document("(p)", "<p>first</p><p>second</p>");
+
+        ValidatingReader reader = validator.validate(new StringReader(content), RESOURCE, null);
+        try {
+            assertEquals(content, IOUtil.toString(reader));
+            ParseException e = assertThrows(ParseException.class, reader::awaitValidation);
+            assertEquals("Error validating the model", e.getMessage());
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testPartiallyReadDocument() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            body.append("<p>paragraph ").append(i).append("</p>\n");
+        }
+        String content = document("(p*)", body.toString());
+
+        ValidatingReader reader = validator.validate(new StringReader(content), RESOURCE, null);
+        try {
+            // a parser may stop reading before the end of the document
+            char[] buffer = new char[1024];
+            assertEquals(buffer.length, reader.read(buffer));
+            reader.awaitValidation();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testUnreadDocumentValidatedOnClose() throws Exception {
+        String content = document("(p)", "<p>first</p><p>second</p>");
+
+        ValidatingReader reader = validator.validate(new StringReader(content), RESOURCE, null);
+        reader.close();
+
+        assertThrows(ParseException.class, reader::awaitValidation);
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.maven.doxia.site.Body;
+import org.apache.maven.doxia.site.Menu;
+import org.apache.maven.doxia.site.MenuItem;
+import org.apache.maven.doxia.site.SiteModel;
+
+/**
+ * Generator of synthetic site trees for scale tests: every parameter has a small default, to be raised with the
+ * setters. Generation is deterministic: the same parameters always produce the same site.
+ */
+class SyntheticSiteGenerator {
+    /**
+     * Number of sub-directories of each directory of the nested page directories.
+     */
+    private static final int FANOUT = 10;
+
+    private int pages = 100;
+
+    private List<String> markups = Arrays.asList("apt", "xdoc", "fml", "xhtml");
+
+    private double velocityShare = 0.1;
+
+    private int depth = 2;
+
+    private int menuSize = 10;
+
+    private List<Locale> locales = Collections.singletonList(Locale.ROOT);
+
+    /**
+     * @param pages the number of pages of each locale
+     * @return this generator
+     */
+    SyntheticSiteGenerator pages(int pages) {
+        this.pages = pages;
+        return this;
+    }
+
+    /**
+     * @param markups the parser ids of the pages, used in turn
+     * @return this generator
+     */
+    SyntheticSiteGenerator markups(String... markups) {
+        this.markups = Arrays.asList(markups);
+        return this;
+    }
+
+    /**
+     * @param velocityShare the share of pages processed by Velocity, from 0 to 1
+     * @return this generator
+     */
+    SyntheticSiteGenerator velocityShare(double velocityShare) {
+        this.velocityShare = velocityShare;
+        return this;
+    }
+
+    /**
+     * @param depth the number of nested directories of the pages, below the markup source directory
+     * @return this generator
+     */
+    SyntheticSiteGenerator depth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    /**
+     * @param menuSize the number of items of each menu of the site model
+     * @return this generator
+     */
+    SyntheticSiteGenerator menuSize(int menuSize) {
+        this.menuSize = menuSize;
+        return this;
+    }
+
+    /**
+     * @param locales the locales of the site: pages of other locales than the first one are generated in a
+     * sub-directory named after the locale, like the Maven Site Plugin expects
+     * @return this generator
+     */
+    SyntheticSiteGenerator locales(Locale... locales) {
+        this.locales = Arrays.asList(locales);
+        return this;
+    }
+
+    List<Locale> getLocales() {
+        return locales;
+    }
+
+    /**
+     * Get the site directory of a locale.
+     *
+     * @param siteDirectory the site directory
+     * @param locale one of the site locales
+     * @return the directory of the pages of the locale
+     */
+    File getLocaleDirectory(File siteDirectory, Locale locale) {
+        return locale.equals(locales.get(0)) ? siteDirectory : new File(siteDirectory, locale.toString());
+    }
+
+    /**
+     * Get the number of pages processed by Velocity in each locale.
+     *
+     * @return the number of Velocity pages
+     */
+    int getVelocityPages() {
+        int count = 0;
+        for (int i = 0; i < pages; i++) {
+            if (isVelocity(i)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Write the pages of every locale.
+     *
+     * @param siteDirectory the site directory
+     * @return a site model with menus linking to the pages
+     * @throws IOException if a page can't be written
+     */
+    SiteModel generate(File siteDirectory) throws IOException {
+        List<String> outputNames = new ArrayList<>(pages);
+        for (Locale locale : locales) {
+            File localeDirectory = getLocaleDirectory(siteDirectory, locale);
+            outputNames.clear();
+            for (int i = 0; i < pages; i++) {
+                String markup = markups.get(i % markups.size());
+                String path = getPath(i);
+                String fileName = path + '.' + ("xdoc".equals(markup) ? "xml" : markup) + (isVelocity(i) ? ".vm" : "");
+                File file = new File(localeDirectory, markup + '/' + fileName);
+                file.getParentFile().mkdirs();
+                String content = getContent(markup, "Page " + i + " (" + locale + ")", isVelocity(i));
+                Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+                outputNames.add(path + ".html");
+            }
+        }
+        return getSiteModel(outputNames);
+    }
+
+    private boolean isVelocity(int page) {
+        return (int) ((page + 1) * velocityShare) > (int) (page * velocityShare);
+    }
+
+    private String getPath(int page) {
+        StringBuilder path = new StringBuilder();
+        int index = page;
+        for (int level = 0; level < depth; level++) {
+            path.append("dir-").append(index % FANOUT).append('/');
+            index /= FANOUT;
+        }
+        return path.append("page-").append(page).toString();
+    }
+
+    private SiteModel getSiteModel(List<String> outputNames) {
+        Body body = new Body();
+        for (int start = 0; start < outputNames.size(); start += menuSize) {
+            Menu menu = new Menu();
+            menu.setName("Menu " + (start / menuSize));
+            for (int i = start; i < Math.min(start + menuSize, outputNames.size()); i++) {
+                MenuItem item = new MenuItem();
+                item.setName("Page " + i);
+                item.setHref(outputNames.get(i));
+                menu.addItem(item);
+            }
+            body.addMenu(menu);
+        }
+
+        SiteModel siteModel = new SiteModel();
+        siteModel.setName("Synthetic site");
+        siteModel.setBody(body);
+        return siteModel;
+    }
+
+    private static String getContent(String markup, String title, boolean velocity) {
+        String text = velocity ? "Processed by Velocity at $date with $velocityCount items." : "Static text.";
+        String start = velocity ? "#set( $velocityCount = 3 )\n" : "";
+        switch (markup) {
+            case "apt":
+                return start + " -----\n " + title + "\n -----\n\n" + title + "\n\n"
+                        + " Paragraph with <<bold>> text and a {{{./index.html}link}}. " + text + "\n\n"
+                        + " * first item\n\n * second item\n\n []\n\n"
+                        + "+----+\ncode();\n+----+\n";
+            case "xdoc":
+                return start + "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                        + "<document xmlns=\"http://maven.apache.org/XDOC/2.0\">\n"
+                        + "  <properties><title>" + title + "</title></properties>\n"
+                        + "  <body>\n    <section name=\"" + title + "\">\n"
+                        + "      <p>Paragraph with <b>bold</b> text and a <a href=\"./index.html\">link</a>. " + text
+                        + "</p>\n      <ul><li>first item</li><li>second item</li></ul>\n"
+                        + "      <source>code();</source>\n    </section>\n  </body>\n</document>\n";
+            case "fml":
+                return start + "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                        + "<faqs xmlns=\"http://maven.apache.org/FML/1.0.1\" title=\"" + title + "\">\n"
+                        + "  <part id=\"part\">\n    <title>" + title + "</title>\n"
+                        + "    <faq id=\"faq\">\n      <question>Question?</question>\n"
+                        + "      <answer><p>Answer with <b>bold</b> text. " + text + "</p></answer>\n"
+                        + "    </faq>\n  </part>\n</faqs>\n";
+            case "xhtml":
+                return start + "<!DOCTYPE html>\n<html>\n  <head><title>" + title + "</title></head>\n"
+                        + "  <body>\n    <section>\n      <h1>" + title + "</h1>\n"
+                        + "      <p>Paragraph with <b>bold</b> text and a <a href=\"./index.html\">link</a>. " + text
+                        + "</p>\n      <ul><li>first item</li><li>second item</li></ul>\n"
+                        + "    </section>\n  </body>\n</html>\n";
+            default:
+                throw new IllegalArgumentException("Unsupported markup: " + markup);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer.sink;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.apache.maven.doxia.siterenderer.DocumentRenderingContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RelativePathWriterTest {
+    private static String replace(String... chunks) throws Exception {
+        StringWriter sw = new StringWriter();
+        try (Writer writer = new RelativePathWriter(sw, "../..")) {
+            for (String chunk : chunks) {
+                writer.write(chunk);
+            }
+        }
+        return sw.toString();
+    }
+
+    @Test
+    public void testReplace() throws Exception {
+        assertEquals("no token", replace("no token"));
+        assertEquals("<a href=\"../../index.html\">", replace("<a href=\"$relativePath/index.html\">"));
+        assertEquals("../.. and ../..", replace("$relativePath and $relativePath"));
+        assertEquals("$ $relative $../..", replace("$ $relative $$relativePath"));
+    }
+
+    @Test
+    public void testTokenAcrossChunks() throws Exception {
+        assertEquals("a/../../b", replace("a/$rel", "ative", "Path/b"));
+        assertEquals("a/../..", replace("a/$", "relativePath"));
+        assertEquals("$relat$ive", replace("$relat", "$ive"));
+        assertEquals("end with $relative", replace("end with $relative"));
+    }
+
+    @Test
+    public void testSiteRendererSink() {
+        DocumentRenderingContext docRenderingContext =
+                new DocumentRenderingContext(new File("src/site"), "", "sub/doc.apt", "apt", "", false);
+        SiteRendererSink sink = new SiteRendererSink(docRenderingContext);
+        sink.text("see $relative");
+        sink.text("Path/index.html");
+        sink.text(" or $relat");
+
+        assertEquals("see ../index.html or $relat", sink.getBody());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.siterenderer;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.maven.doxia.siterenderer.sink.SiteRendererSink;
+import org.junit.jupiter.api.Test;
+
+import static org.codehaus.plexus.testing.PlexusExtension.getTestFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test of the Java Flight Recorder events, with the Java 11 classes of the multi-release jar.
+ */
+public class SiteRenderingEventsTest {
+    private static final File SITE = getTestFile("src/test/resources/site/apt");
+
+    @Test
+    public void testNoEventWithoutRecording() {
+        assertNull(SiteRenderingEvents.beginRenderDocument());
+        assertNull(SiteRenderingEvents.beginMergeDocument());
+        assertNull(SiteRenderingEvents.beginCopyResources());
+        assertNull(SiteRenderingEvents.beginLocateDocuments());
+    }
+
+    @Test
+    public void testRecordedEvents() throws Exception {
+        DocumentRenderingContext docRenderingContext =
+                new DocumentRenderingContext(SITE, "apt", "apt.apt", "apt", "apt", false);
+        SiteRenderingContext siteContext = new SiteRenderingContext();
+        siteContext.setLocale(Locale.FRENCH);
+        siteContext.setTemplateName("site.vm");
+        SiteRendererSink sink = spy(new SiteRendererSink(docRenderingContext));
+        sink.body();
+        sink.paragraph();
+        sink.text("recorded body");
+        sink.paragraph_();
+        sink.body_();
+
+        Path dump = Files.createTempFile("doxia-site-renderer", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.apache.maven.doxia.RenderDocument");
+            recording.enable("org.apache.maven.doxia.MergeDocument");
+            recording.enable("org.apache.maven.doxia.CopyResources");
+            recording.enable("org.apache.maven.doxia.LocateDocuments");
+            recording.start();
+
+            Object render = SiteRenderingEvents.beginRenderDocument();
+            Object merge = SiteRenderingEvents.beginMergeDocument();
+            SiteRenderingEvents.endMergeDocument(merge, sink, siteContext);
+            SiteRenderingEvents.endRenderDocument(render, docRenderingContext, siteContext);
+            SiteRenderingEvents.endCopyResources(
+                    SiteRenderingEvents.beginCopyResources(), siteContext, 3, 2, 1024L);
+            SiteRenderingEvents.endLocateDocuments(SiteRenderingEvents.beginLocateDocuments(), siteContext, 7);
+
+            recording.stop();
+            recording.dump(dump);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            assertEquals(4, events.size());
+
+            RecordedEvent renderEvent = getEvent(events, "org.apache.maven.doxia.RenderDocument");
+            assertEquals("apt/apt.apt", renderEvent.getString("documentPath"));
+            assertEquals("apt", renderEvent.getString("parserId"));
+            assertEquals("fr", renderEvent.getString("locale"));
+            assertNull(renderEvent.getString("skin"));
+            assertEquals(new File(SITE, "apt.apt").length(), renderEvent.getLong("bytesIn"));
+
+            RecordedEvent mergeEvent = getEvent(events, "org.apache.maven.doxia.MergeDocument");
+            assertEquals("apt/apt.apt", mergeEvent.getString("documentPath"));
+            assertEquals("site.vm", mergeEvent.getString("template"));
+            assertEquals(sink.getBodyLength(), mergeEvent.getInt("bodyLength"));
+            // the body length is recorded without building the body
+            verify(sink, never()).getBody();
+
+            RecordedEvent copyEvent = getEvent(events, "org.apache.maven.doxia.CopyResources");
+            assertEquals(3, copyEvent.getInt("copied"));
+            assertEquals(2, copyEvent.getInt("unchanged"));
+            assertEquals(1024L, copyEvent.getLong("bytesCopied"));
+
+            RecordedEvent locateEvent = getEvent(events, "org.apache.maven.doxia.LocateDocuments");
+            assertEquals("fr", locateEvent.getString("locale"));
+            assertEquals(7, locateEvent.getInt("documents"));
+        } finally {
+            Files.deleteIfExists(dump);
+        }
+    }
+
+    private static RecordedEvent getEvent(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> name.equals(e.getEventType().getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " event"));
+    }
+}
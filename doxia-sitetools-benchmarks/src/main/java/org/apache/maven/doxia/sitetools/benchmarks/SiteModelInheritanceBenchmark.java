@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.sitetools.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.doxia.site.SiteModel;
+import org.apache.maven.doxia.site.inheritance.DefaultSiteModelInheritanceAssembler;
+import org.apache.maven.doxia.site.inheritance.SiteModelInheritanceAssembler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inheritance of a parent site model with deep menus, every relative link being rebased to the child site.
+ * The child is cloned before each assembly, since the assembly modifies it: the clone is measured by
+ * {@link #cloneChild()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SiteModelInheritanceBenchmark {
+    private static final String PARENT_URL = "https://maven.example.org/parent/";
+
+    private static final String CHILD_URL = "https://maven.example.org/parent/modules/child/";
+
+    @Param({"2", "4"})
+    private int depth;
+
+    @Param({"5"})
+    private int breadth;
+
+    private final SiteModelInheritanceAssembler assembler = new DefaultSiteModelInheritanceAssembler();
+
+    private SiteModel parent;
+
+    private SiteModel child;
+
+    @Setup
+    public void setUp() {
+        parent = SyntheticSite.siteModel(3, depth, breadth);
+        child = SyntheticSite.siteModel(1, 1, breadth);
+    }
+
+    @Benchmark
+    public SiteModel cloneChild() {
+        return child.clone();
+    }
+
+    @Benchmark
+    public SiteModel assembleModelInheritance() {
+        SiteModel merged = child.clone();
+        assembler.assembleModelInheritance("child", merged, parent, CHILD_URL, PARENT_URL);
+        return merged;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.sitetools.benchmarks;
+
+import java.io.File;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.versioning.VersionRange;
+import org.apache.maven.doxia.Doxia;
+import org.apache.maven.doxia.site.SiteModel;
+import org.apache.maven.doxia.siterenderer.DocumentRenderingContext;
+import org.apache.maven.doxia.siterenderer.SiteRenderer;
+import org.apache.maven.doxia.siterenderer.SiteRenderingContext;
+import org.apache.maven.doxia.siterenderer.sink.SiteRendererSink;
+import org.codehaus.plexus.PlexusContainer;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.ReaderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering of a synthetic document with {@link SiteRenderer#renderDocument}, and merge of the already parsed
+ * document into the site template with {@link SiteRenderer#mergeDocumentIntoSite}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SiteRendererBenchmark {
+    @Param({"apt", "xdoc", "fml"})
+    private String format;
+
+    @Param({"10", "100"})
+    private int sections;
+
+    private File directory;
+
+    private PlexusContainer container;
+
+    private SiteRenderer siteRenderer;
+
+    private SiteRenderingContext siteRenderingContext;
+
+    private DocumentRenderingContext docRenderingContext;
+
+    private SiteRendererSink parsedDocument;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("doxia-benchmark").toFile();
+
+        container = SyntheticSite.newContainer();
+        siteRenderer = container.lookup(SiteRenderer.class);
+
+        File skinJar = new File(directory, "skin.jar");
+        SyntheticSite.writeSkin(skinJar);
+        Artifact skin = new DefaultArtifact(
+                "org.apache.maven.skins",
+                "synthetic-skin",
+                VersionRange.createFromVersion("1.0"),
+                null,
+                "jar",
+                "",
+                null);
+        skin.setFile(skinJar);
+        SiteModel siteModel = SyntheticSite.siteModel(2, 1, 5);
+        siteRenderingContext = siteRenderer.createContextForSkin(
+                skin, Collections.emptyMap(), siteModel, "Synthetic site", Locale.ROOT);
+
+        File basedir = new File(directory, format);
+        String document = "page." + format;
+        SyntheticSite.writeDocument(new File(basedir, document), format, sections);
+        docRenderingContext = new DocumentRenderingContext(basedir, format, document, format, format, false);
+
+        // parse once for the merge benchmark
+        parsedDocument = new SiteRendererSink(docRenderingContext);
+        Doxia doxia = container.lookup(Doxia.class);
+        try (Reader reader = "apt".equals(format)
+                ? ReaderFactory.newReader(new File(basedir, document), "UTF-8")
+                : ReaderFactory.newXmlReader(new File(basedir, document))) {
+            doxia.parse(reader, format, parsedDocument, docRenderingContext.getDoxiaSourcePath());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        container.dispose();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public long renderDocument() throws Exception {
+        SyntheticSite.CountingWriter writer = new SyntheticSite.CountingWriter();
+        siteRenderer.renderDocument(writer, docRenderingContext, siteRenderingContext);
+        return writer.getCount();
+    }
+
+    @Benchmark
+    public long mergeDocumentIntoSite() throws Exception {
+        SyntheticSite.CountingWriter writer = new SyntheticSite.CountingWriter();
+        siteRenderer.mergeDocumentIntoSite(writer, parsedDocument, siteRenderingContext);
+        return writer.getCount();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.sitetools.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.doxia.siterenderer.DocumentRenderingContext;
+import org.apache.maven.doxia.siterenderer.sink.SiteRendererSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Write throughput of {@link SiteRendererSink}: events of a synthetic document written to a new sink, then the body
+ * written out.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SiteRendererSinkBenchmark {
+    @Param({"10", "100", "1000"})
+    private int sections;
+
+    private DocumentRenderingContext docRenderingContext;
+
+    @Setup
+    public void setUp() {
+        docRenderingContext = new DocumentRenderingContext(new File(""), "document.html", "generator");
+    }
+
+    @Benchmark
+    public long writeDocument() throws IOException {
+        SiteRendererSink sink = new SiteRendererSink(docRenderingContext);
+
+        sink.head();
+        sink.title();
+        sink.text("Synthetic document");
+        sink.title_();
+        sink.author();
+        sink.text("Doxia");
+        sink.author_();
+        sink.head_();
+
+        sink.body();
+        for (int i = 0; i < sections; i++) {
+            sink.section1();
+            sink.sectionTitle1();
+            sink.text("Section " + i);
+            sink.sectionTitle1_();
+
+            sink.paragraph();
+            sink.text("Paragraph with ");
+            sink.bold();
+            sink.text("bold");
+            sink.bold_();
+            sink.text(" text, <escaped> characters & a ");
+            sink.link("./page-" + i + ".html");
+            sink.text("link");
+            sink.link_();
+            sink.paragraph_();
+
+            sink.list();
+            sink.listItem();
+            sink.text("first item");
+            sink.listItem_();
+            sink.listItem();
+            sink.text("second item");
+            sink.listItem_();
+            sink.list_();
+
+            sink.verbatim();
+            sink.text("int section = " + i + ";");
+            sink.verbatim_();
+            sink.section1_();
+        }
+        sink.body_();
+        sink.flush();
+
+        SyntheticSite.CountingWriter writer = new SyntheticSite.CountingWriter();
+        sink.writeBodyTo(writer);
+        sink.close();
+        return writer.getCount();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.sitetools.benchmarks;
+
+import java.io.File;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.doxia.site.SiteModel;
+import org.apache.maven.doxia.site.io.xpp3.SiteXpp3Writer;
+import org.apache.maven.doxia.tools.SiteTool;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.repository.internal.MavenRepositorySystemUtils;
+import org.codehaus.plexus.PlexusContainer;
+import org.codehaus.plexus.util.FileUtils;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.internal.impl.SimpleLocalRepositoryManagerFactory;
+import org.eclipse.aether.repository.LocalRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Site model assembly with {@link SiteTool#getSiteModel}, for a stubbed reactor project inheriting the site
+ * descriptors of its parents: each level reads, interpolates and inherits a site descriptor with deep menus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SiteToolBenchmark {
+    @Param({"1", "3"})
+    private int parents;
+
+    private File directory;
+
+    private PlexusContainer container;
+
+    private SiteTool siteTool;
+
+    private DefaultRepositorySystemSession repoSession;
+
+    private MavenProject project;
+
+    private List<MavenProject> reactorProjects;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("doxia-benchmark").toFile();
+
+        container = SyntheticSite.newContainer();
+        siteTool = container.lookup(SiteTool.class);
+
+        repoSession = MavenRepositorySystemUtils.newSession();
+        repoSession.setLocalRepositoryManager(new SimpleLocalRepositoryManagerFactory()
+                .newInstance(repoSession, new LocalRepository(new File(directory, "local-repo"))));
+
+        // a chain of projects, from the root parent down to the project, each in a sub-directory of its parent
+        reactorProjects = new ArrayList<>();
+        File basedir = directory;
+        MavenProject parent = null;
+        for (int level = 0; level <= parents; level++) {
+            basedir = new File(basedir, "level-" + level);
+            MavenProject levelProject = newProject(basedir, level, parent);
+            reactorProjects.add(levelProject);
+            parent = levelProject;
+        }
+        project = parent;
+    }
+
+    private static MavenProject newProject(File basedir, int level, MavenProject parent) throws Exception {
+        Model model = new Model();
+        model.setGroupId("org.apache.maven.doxia.benchmarks");
+        model.setArtifactId("level-" + level);
+        model.setVersion("1.0");
+        model.setName("Level " + level);
+        model.setUrl((parent == null ? "https://maven.example.org/" : parent.getUrl()) + "level-" + level + "/");
+
+        MavenProject project = new MavenProject(model);
+        project.setFile(new File(basedir, "pom.xml"));
+        project.setParent(parent);
+
+        SiteModel siteModel = SyntheticSite.siteModel(2, 3, 4);
+        siteModel.setName("${project.name}");
+        File siteDescriptor = new File(basedir, "src/site/site.xml");
+        siteDescriptor.getParentFile().mkdirs();
+        try (Writer writer = Files.newBufferedWriter(siteDescriptor.toPath())) {
+            new SiteXpp3Writer().write(writer, siteModel);
+        }
+
+        return project;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        container.dispose();
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public SiteModel getSiteModel() throws Exception {
+        return siteTool.getSiteModel(
+                new File(project.getBasedir(), "src/site"),
+                SiteTool.DEFAULT_LOCALE,
+                project,
+                reactorProjects,
+                repoSession,
+                Collections.emptyList());
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.doxia.sitetools.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.apache.maven.doxia.site.Body;
+import org.apache.maven.doxia.site.LinkItem;
+import org.apache.maven.doxia.site.Menu;
+import org.apache.maven.doxia.site.MenuItem;
+import org.apache.maven.doxia.site.SiteModel;
+import org.codehaus.plexus.DefaultContainerConfiguration;
+import org.codehaus.plexus.DefaultPlexusContainer;
+import org.codehaus.plexus.PlexusConstants;
+import org.codehaus.plexus.PlexusContainer;
+import org.codehaus.plexus.PlexusContainerException;
+
+/**
+ * Synthetic site content used by the benchmarks: documents, skin and site models of configurable size.
+ */
+final class SyntheticSite {
+    /**
+     * Template of the synthetic skin, using the usual variables of a site template.
+     */
+    private static final String SITE_TEMPLATE = "<!DOCTYPE html>\n"
+            + "<html lang=\"$locale\">\n"
+            + "  <head>\n"
+            + "    <title>$title</title>\n"
+            + "    $headContent\n"
+            + "  </head>\n"
+            + "  <body>\n"
+            + "    <nav>\n"
+            + "#foreach( $menu in $site.body.menus )\n"
+            + "      <h5>$menu.name</h5>\n"
+            + "#foreach( $item in $menu.items )\n"
+            + "      <a href=\"$item.href\">$item.name</a>\n"
+            + "#end\n"
+            + "#end\n"
+            + "    </nav>\n"
+            + "    <main>$bodyRenderer</main>\n"
+            + "    <footer>$publishDate</footer>\n"
+            + "  </body>\n"
+            + "</html>\n";
+
+    private SyntheticSite() {
+        // no instances
+    }
+
+    /**
+     * Create a container discovering the indexed components, like Maven does.
+     *
+     * @return a new container
+     * @throws PlexusContainerException if the container can't be created
+     */
+    static PlexusContainer newContainer() throws PlexusContainerException {
+        DefaultContainerConfiguration configuration = new DefaultContainerConfiguration();
+        configuration.setClassPathScanning(PlexusConstants.SCANNING_INDEX);
+        configuration.setAutoWiring(true);
+        return new DefaultPlexusContainer(configuration);
+    }
+
+    /**
+     * Write a skin archive containing only a site template.
+     *
+     * @param skinJar the skin archive to write
+     * @throws IOException if the archive can't be written
+     */
+    static void writeSkin(File skinJar) throws IOException {
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(skinJar.toPath()))) {
+            jar.putNextEntry(new ZipEntry("META-INF/maven/site.vm"));
+            jar.write(SITE_TEMPLATE.getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+    }
+
+    /**
+     * Write a synthetic document.
+     *
+     * @param file the document file to write
+     * @param format the document format: <code>apt</code>, <code>xdoc</code> or <code>fml</code>
+     * @param sections the number of sections, or FAQ parts
+     * @throws IOException if the document can't be written
+     */
+    static void writeDocument(File file, String format, int sections) throws IOException {
+        String content;
+        switch (format) {
+            case "apt":
+                content = apt(sections);
+                break;
+            case "xdoc":
+                content = xdoc(sections);
+                break;
+            case "fml":
+                content = fml(sections);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported document format: " + format);
+        }
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String apt(int sections) {
+        StringBuilder apt = new StringBuilder();
+        apt.append(" -----\n Synthetic APT document\n -----\n Doxia\n -----\n\n");
+        for (int i = 1; i <= sections; i++) {
+            apt.append("Section ").append(i).append("\n\n");
+            apt.append(" Paragraph ")
+                    .append(i)
+                    .append(" with <<bold>>, <italic> and <<<monospaced>>> text,")
+                    .append(" a {{{./page-")
+                    .append(i)
+                    .append(".html}link}} and an escaped \\<tag\\>.\n\n");
+            apt.append(" * first item of list ").append(i).append("\n\n");
+            apt.append(" * second item of list ").append(i).append("\n\n");
+            apt.append(" []\n\n");
+            apt.append("+----+\nint section = ").append(i).append(";\n+----+\n\n");
+            apt.append("*-----+------+\n| cell ").append(i).append(" | value |\n*-----+------+\n\n");
+        }
+        return apt.toString();
+    }
+
+    private static String xdoc(int sections) {
+        StringBuilder xdoc = new StringBuilder();
+        xdoc.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<document xmlns=\"http://maven.apache.org/XDOC/2.0\">\n")
+                .append("  <properties>\n    <title>Synthetic XDoc document</title>\n  </properties>\n")
+                .append("  <body>\n");
+        for (int i = 1; i <= sections; i++) {
+            xdoc.append("    <section name=\"Section ").append(i).append("\">\n");
+            xdoc.append("      <p>Paragraph ")
+                    .append(i)
+                    .append(" with <b>bold</b>, <i>italic</i> and <code>code</code>")
+                    .append(" text, a <a href=\"./page-")
+                    .append(i)
+                    .append(".html\">link</a> and &lt;entities&gt;.</p>\n");
+            xdoc.append("      <ul>\n        <li>first item of list ")
+                    .append(i)
+                    .append("</li>\n")
+                    .append("        <li>second item of list ")
+                    .append(i)
+                    .append("</li>\n      </ul>\n");
+            xdoc.append("      <source>int section = ").append(i).append(";</source>\n");
+            xdoc.append("      <table>\n        <tr><th>cell ")
+                    .append(i)
+                    .append("</th><td>value</td></tr>\n")
+                    .append("      </table>\n");
+            xdoc.append("    </section>\n");
+        }
+        xdoc.append("  </body>\n</document>\n");
+        return xdoc.toString();
+    }
+
+    private static String fml(int parts) {
+        StringBuilder fml = new StringBuilder();
+        fml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n")
+                .append("<faqs xmlns=\"http://maven.apache.org/FML/1.0.1\" title=\"Synthetic FAQ\">\n");
+        for (int i = 1; i <= parts; i++) {
+            fml.append("  <part id=\"part-").append(i).append("\">\n");
+            fml.append("    <title>Part ").append(i).append("</title>\n");
+            for (int j = 1; j <= 3; j++) {
+                fml.append("    <faq id=\"faq-").append(i).append('-').append(j).append("\">\n");
+                fml.append("      <question>Question ")
+                        .append(j)
+                        .append(" of part ")
+                        .append(i)
+                        .append("?</question>\n");
+                fml.append("      <answer><p>Answer with <b>bold</b> text and a <a href=\"./page-")
+                        .append(i)
+                        .append(".html\">link</a>.</p></answer>\n");
+                fml.append("    </faq>\n");
+            }
+            fml.append("  </part>\n");
+        }
+        fml.append("</faqs>\n");
+        return fml.toString();
+    }
+
+    /**
+     * Create a site model with inherited menus of nested items.
+     *
+     * @param menus the number of menus
+     * @param depth the depth of the menu items
+     * @param breadth the number of items at each level of a menu
+     * @return a site model
+     */
+    static SiteModel siteModel(int menus, int depth, int breadth) {
+        SiteModel siteModel = new SiteModel();
+        siteModel.setName("Synthetic site");
+
+        Body body = new Body();
+        for (int i = 0; i < breadth; i++) {
+            body.addLink(linkItem(new LinkItem(), "Link " + i, "links/link-" + i + ".html"));
+            body.addBreadcrumb(linkItem(new LinkItem(), "Crumb " + i, "../crumb-" + i + "/index.html"));
+        }
+        for (int i = 0; i < menus; i++) {
+            Menu menu = new Menu();
+            menu.setName("Menu " + i);
+            menu.setInherit("bottom");
+            for (int j = 0; j < breadth; j++) {
+                menu.addItem(menuItem("menu-" + i + "/item-" + j, depth, breadth));
+            }
+            body.addMenu(menu);
+        }
+        siteModel.setBody(body);
+
+        return siteModel;
+    }
+
+    private static MenuItem menuItem(String path, int depth, int breadth) {
+        MenuItem item = linkItem(new MenuItem(), "Item " + path, path + "/index.html");
+        if (depth > 1) {
+            for (int i = 0; i < breadth; i++) {
+                item.addItem(menuItem(path + "/sub-" + i, depth - 1, breadth));
+            }
+        }
+        return item;
+    }
+
+    private static <T extends LinkItem> T linkItem(T item, String name, String href) {
+        item.setName(name);
+        item.setHref(href);
+        return item;
+    }
+
+    /**
+     * Writer discarding what is written, counting the characters.
+     */
+    static class CountingWriter extends Writer {
+        private long count;
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public void write(int c) {
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void flush() {
+            // nothing to flush
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}